@@ -0,0 +1,72 @@
+package com.jrock.querydsl.benchmark;
+
+import com.jrock.querydsl.QuerydslApplication;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ *   - 벤치마크마다 별도의 인메모리 H2 를 사용한다. (로컬 H2 서버, InitMember 와 무관)
+ *   - 팀 TEAM_COUNT 개, 회원 members 명을 저장한다. 회원 i 의 나이는 i % 100, 팀은 i % TEAM_COUNT
+ */
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+    private static final int FLUSH_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, int members) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.profiles.active=jmh",
+                        "--spring.datasource.url=jdbc:h2:mem:" + name + members + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--member.count-cache.enabled=false",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.root=warn"
+                );
+
+        seed(context, members);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int members) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Long> teamIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        for (int start = 0; start < members; start += FLUSH_SIZE) {
+            int from = start;
+            int to = Math.min(members, start + FLUSH_SIZE);
+            tx.executeWithoutResult(status -> {
+                for (int i = from; i < to; i++) {
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(em.getReference(Team.class, teamIds.get(i % TEAM_COUNT)));
+                    em.persist(member);
+                }
+            });
+        }
+    }
+}
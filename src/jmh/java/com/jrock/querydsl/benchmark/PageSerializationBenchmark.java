@@ -0,0 +1,72 @@
+package com.jrock.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.web.SlimPageJsonWriter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v2, /v3 응답 직렬화 비용 비교 (DB 없이 직렬화만 측정)
+ *   - jackson: 지금처럼 PageImpl 을 Jackson 으로 직렬화
+ *   - slim: SlimPageJsonWriter (Accept: application/vnd.jrock.slim-page)
+ *
+ * 응답 크기는 setup 에서 출력하고, 요청당 할당량은 -prof gc 의 gc.alloc.rate.norm 으로 본다.
+ *   java -jar build/libs/querydsl-0.1-jmh.jar PageSerializationBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+    private Page<MemberTeamDto> page;
+
+    @Setup
+    public void setUp() {
+        List<MemberTeamDto> content = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        page = new PageImpl<>(content, PageRequest.of(3, size), 100_000);
+
+        try {
+            System.out.printf("%n[response bytes] size=%d, jackson=%d, slim=%d%n", size, jackson(), slim());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public int jackson() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, page);
+        return out.size();
+    }
+
+    @Benchmark
+    public int slim() throws IOException {
+        out.reset();
+        SlimPageJsonWriter.write(page, out);
+        return out.size();
+    }
+}
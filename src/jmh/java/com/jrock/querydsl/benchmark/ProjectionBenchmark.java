@@ -0,0 +1,90 @@
+package com.jrock.querydsl.benchmark;
+
+import com.jrock.querydsl.dto.MemberDto;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.dto.QMemberDto;
+import com.jrock.querydsl.dto.QMemberTeamDto;
+import com.jrock.querydsl.dto.UserDto;
+import com.jrock.querydsl.projection.FastProjections;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.jrock.querydsl.entity.QMember.member;
+import static com.jrock.querydsl.entity.QTeam.team;
+
+/**
+ * 행 하나를 DTO 로 변환하는 비용 비교 (DB 없이 newInstance 만 측정)
+ *   - Querydsl Projections.bean / fields / constructor, @QueryProjection
+ *   - FastProjections.bean / fields / constructor
+ *
+ * 할당량까지 보려면: java -jar build/libs/querydsl-0.1-jmh.jar ProjectionBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    private final Object[] memberRow = {"member1", 10};
+    private final Object[] memberTeamRow = {1L, "member1", 10, 2L, "teamA"};
+
+    private final FactoryExpression<MemberDto> querydslBean = Projections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<UserDto> querydslFields = Projections.fields(UserDto.class, member.username.as("name"), member.age);
+    private final FactoryExpression<MemberTeamDto> querydslConstructor = Projections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+    private final FactoryExpression<MemberDto> queryProjection = new QMemberDto(member.username, member.age);
+    private final FactoryExpression<MemberTeamDto> queryProjectionMemberTeam = new QMemberTeamDto(
+            member.id, member.username, member.age, team.id, team.name);
+
+    private final FactoryExpression<MemberDto> fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<UserDto> fastFields = FastProjections.fields(UserDto.class, member.username.as("name"), member.age);
+    private final FactoryExpression<MemberTeamDto> fastConstructor = FastProjections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+
+    @Benchmark
+    public MemberDto querydslBean() {
+        return querydslBean.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public UserDto querydslFields() {
+        return querydslFields.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto querydslConstructor() {
+        return querydslConstructor.newInstance(memberTeamRow);
+    }
+
+    @Benchmark
+    public MemberDto queryProjection() {
+        return queryProjection.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto queryProjectionMemberTeam() {
+        return queryProjectionMemberTeam.newInstance(memberTeamRow);
+    }
+
+    @Benchmark
+    public MemberDto fastBean() {
+        return fastBean.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public UserDto fastFields() {
+        return fastFields.newInstance(memberRow);
+    }
+
+    @Benchmark
+    public MemberTeamDto fastConstructor() {
+        return fastConstructor.newInstance(memberTeamRow);
+    }
+}
@@ -0,0 +1,105 @@
+package com.jrock.querydsl.benchmark;
+
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팀 회원 수에 따른 회원 추가, 팀 이동 비용 (Member.changeTeam)
+ *   - addMember, moveMember: team.members 를 로딩하지 않으므로 members 파라미터와 무관하게 시간이 같아야 한다.
+ *   - addMemberLoaded: 컬렉션을 로딩한 후 추가 (변경 전 changeTeam 처럼 팀 회원 전체를 읽는 비용)
+ *
+ * 매 호출은 flush 까지 실행하고 롤백하므로 데이터는 바뀌지 않는다.
+ * 예) java -jar build/libs/querydsl-0.1-jmh.jar TeamMembershipBenchmark -p members=500000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TeamMembershipBenchmark {
+
+    @Param({"1000", "100000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate tx;
+    Long teamId;
+    Long otherTeamId;
+    Long memberId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("membership", members);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        tx.executeWithoutResult(status -> {
+            Member member = em.createQuery("select m from Member m order by m.id", Member.class)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            memberId = member.getId();
+            teamId = member.getTeam().getId();
+            otherTeamId = em.createQuery("select t.id from Team t where t.id <> :teamId", Long.class)
+                    .setParameter("teamId", teamId)
+                    .setMaxResults(1)
+                    .getSingleResult();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long addMember() {
+        return tx.execute(status -> {
+            Member member = new Member("new", 10, em.find(Team.class, teamId));
+            em.persist(member);
+            em.flush();
+            status.setRollbackOnly();
+            return member.getId();
+        });
+    }
+
+    @Benchmark
+    public Long moveMember() {
+        return tx.execute(status -> {
+            Member member = em.find(Member.class, memberId);
+            member.changeTeam(em.find(Team.class, otherTeamId));
+            member.changeTeam(em.find(Team.class, teamId));
+            em.flush();
+            status.setRollbackOnly();
+            return member.getId();
+        });
+    }
+
+    @Benchmark
+    public Long addMemberLoaded() {
+        return tx.execute(status -> {
+            Team team = em.find(Team.class, teamId);
+            Hibernate.initialize(team.getMembers());
+            Member member = new Member("new", 10, team);
+            em.persist(member);
+            em.flush();
+            status.setRollbackOnly();
+            return member.getId();
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package com.jrock.querydsl.advisor;
+
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.repository.MemberSearchQueryCache;
+import com.jrock.querydsl.repository.MemberSearchShape;
+import com.jrock.querydsl.repository.QueryShapeRecorder;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 검색조건 모양별 인덱스 분석
+ *   - 모양별 템플릿 JPQL(MemberSearchQueryCache)을 하이버네이트가 만드는 SQL 로 바꾸고, 예시 값을 바인딩해서 EXPLAIN 한다.
+ *   - 실행계획에 전체 스캔(H2: tableScan, 조건 없는 인덱스 스캔)이 있으면 필요한 인덱스를 제안한다.
+ *   - index-advisor.apply-enabled=true 이면 제안한 인덱스를 생성할 수 있다. (/actuator/indexadvisor POST)
+ *   - index-advisor.fail-on-full-scan=true 이면 hot-shapes 중 전체 스캔하는 모양이 있을 때 시작에 실패한다. (배포 전 점검용, 테스트는 IndexAdvisorTest 에서 모든 모양을 확인)
+ *
+ * 조건이 없는 모양(none)은 전체 조회이므로 전체 스캔이 당연하다. 분석하지 않는다.
+ * 회원명 조건은 검색 방식까지 모양에 포함되므로 실제로 실행한 조건(=, LIKE 'x%', LIKE '%x%', lower())으로 EXPLAIN 한다.
+ * EXPLAIN 문법과 실행계획 형식은 H2 기준이다.
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    private static final Pattern PLAN_COMMENT = Pattern.compile("/\\*\\s*(.+?)\\s*\\*/");
+
+    private static final String IDX_MEMBER_USERNAME = "create index if not exists idx_member_username on member (username)";
+    private static final String IDX_MEMBER_TEAM_AGE = "create index if not exists idx_member_team_age on member (team_id, age)";
+    private static final String IDX_MEMBER_AGE = "create index if not exists idx_member_age on member (age)";
+    private static final String IDX_TEAM_NAME = "create index if not exists idx_team_name on team (name)";
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberSearchQueryCache queryTemplates;
+    private final QueryShapeRecorder recorder;
+    private final boolean applyEnabled;
+    private final boolean failOnFullScan;
+    private final List<String> hotShapes;
+
+    public IndexAdvisor(EntityManagerFactory emf, JdbcTemplate jdbcTemplate,
+                        MemberSearchQueryCache queryTemplates, QueryShapeRecorder recorder,
+                        @Value("${index-advisor.apply-enabled:false}") boolean applyEnabled,
+                        @Value("${index-advisor.fail-on-full-scan:false}") boolean failOnFullScan,
+                        @Value("${index-advisor.hot-shapes:}") List<String> hotShapes) {
+        this.sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.queryTemplates = queryTemplates;
+        this.recorder = recorder;
+        this.applyEnabled = applyEnabled;
+        this.failOnFullScan = failOnFullScan;
+        this.hotShapes = hotShapes;
+    }
+
+    /**
+     * 실행된 적 있는 모양의 분석 결과 (실행 횟수가 많은 순서)
+     */
+    public List<ShapeReport> report() {
+        List<ShapeReport> reports = new ArrayList<>();
+        for (Map.Entry<MemberSearchShape, Long> entry : recorder.recorded().entrySet()) {
+            if (entry.getKey().mask() != 0) {
+                reports.add(explain(entry.getKey(), entry.getValue()));
+            }
+        }
+        return reports;
+    }
+
+    public ShapeReport explain(MemberSearchShape shape) {
+        return explain(shape, recorder.executions(shape));
+    }
+
+    /**
+     * 실행된 모양 중 전체 스캔하는 모양의 제안 인덱스를 생성한다.
+     * @return 실행한 DDL
+     */
+    public List<String> apply() {
+        if (!applyEnabled) {
+            throw new IllegalStateException("index-advisor.apply-enabled=true 일 때만 인덱스를 생성합니다.");
+        }
+
+        Set<String> ddls = new LinkedHashSet<>();
+        for (ShapeReport report : report()) {
+            if (report.hasFullScan()) {
+                ddls.addAll(report.getSuggestedIndexes());
+            }
+        }
+        for (String ddl : ddls) {
+            log.info("index advisor apply: {}", ddl);
+            jdbcTemplate.execute(ddl);
+        }
+        return new ArrayList<>(ddls);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkHotShapes() {
+        if (!failOnFullScan) {
+            return;
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (String name : hotShapes) {
+            ShapeReport report = explain(MemberSearchShape.parse(name.trim()));
+            if (report.hasFullScan()) {
+                regressions.add(report.getShape() + " " + report.getFullScans());
+            }
+        }
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException("자주 사용하는 검색조건이 전체 스캔합니다. " + regressions);
+        }
+    }
+
+    private ShapeReport explain(MemberSearchShape shape, long executions) {
+        String contentPlan = explain(queryTemplates.contentQuery(shape), shape);
+        String countPlan = explain(queryTemplates.countQuery(shape), shape);
+
+        List<String> fullScans = new ArrayList<>();
+        fullScans.addAll(fullScans(contentPlan));
+        fullScans.addAll(fullScans(countPlan));
+
+        List<String> suggestions = fullScans.isEmpty() ? Collections.emptyList() : suggest(shape);
+        return new ShapeReport(shape.toString(), executions, contentPlan, countPlan,
+                new ArrayList<>(new LinkedHashSet<>(fullScans)), suggestions);
+    }
+
+    private String explain(String jpql, MemberSearchShape shape) {
+        String sql = sessionFactory.getQueryPlanCache()
+                .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+                .getSqlStrings()[0];
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, sampleParameters(shape));
+    }
+
+    /**
+     * 템플릿의 where 절 순서(username, teamName, ageGoe, ageLoe)대로 예시 값을 바인딩한다.
+     * 회원명은 검색 방식에 맞는 LIKE 패턴으로 바꿔서 바인딩한다.
+     */
+    private static Object[] sampleParameters(MemberSearchShape shape) {
+        List<Object> parameters = new ArrayList<>();
+        if (shape.hasUsername()) {
+            parameters.add(MemberSearchQueryCache.usernameParameter(shape, "member1"));
+        }
+        if (shape.hasTeamName()) {
+            parameters.add("teamA");
+        }
+        if (shape.hasAgeGoe()) {
+            parameters.add(10);
+        }
+        if (shape.hasAgeLoe()) {
+            parameters.add(40);
+        }
+        return parameters.toArray();
+    }
+
+    /**
+     * H2 실행계획의 테이블별 주석
+     *   - PUBLIC.MEMBER.tableScan: 전체 스캔
+     *   - PUBLIC.IDX_MEMBER_AGE: AGE >= ?3 : 인덱스 조회 (조건이 있다)
+     *   - PUBLIC.PRIMARY_KEY_8 : 조건 없는 인덱스 스캔 (전체 스캔과 같다)
+     */
+    static List<String> fullScans(String plan) {
+        List<String> scans = new ArrayList<>();
+        Matcher matcher = PLAN_COMMENT.matcher(plan);
+        while (matcher.find()) {
+            String comment = matcher.group(1);
+            if (comment.endsWith(".tableScan") || (comment.startsWith("PUBLIC.") && !comment.contains(":"))) {
+                scans.add(comment);
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * 같은 값 조건 컬럼을 앞에, 범위 조건(age) 컬럼을 뒤에 둔다.
+     *   - 팀 조건: team(name) 으로 팀을 찾고, member(team_id, age) 로 팀의 회원을 나이 범위까지 한번에 찾는다.
+     *   - 이름 조건: member(username). 완전 일치, 접두사(LIKE 'x%')만 인덱스로 찾을 수 있다.
+     *     LIKE '%x%' 와 lower(username) 은 B-tree 인덱스로 찾을 수 없으므로 제안하지 않는다. (전체 스캔으로 보고만 한다)
+     *   - 나이 조건만: member(age)
+     */
+    static List<String> suggest(MemberSearchShape shape) {
+        List<String> suggestions = new ArrayList<>();
+        if (shape.hasTeamName()) {
+            suggestions.add(IDX_TEAM_NAME);
+            suggestions.add(IDX_MEMBER_TEAM_AGE);
+        }
+        boolean usernameIndexable = shape.hasUsername() && !shape.isUsernameIgnoreCase()
+                && shape.getUsernameMatch() != UsernameMatch.CONTAINS;
+        if (usernameIndexable) {
+            suggestions.add(IDX_MEMBER_USERNAME);
+        }
+        if (!shape.hasTeamName() && !usernameIndexable && (shape.hasAgeGoe() || shape.hasAgeLoe())) {
+            suggestions.add(IDX_MEMBER_AGE);
+        }
+        return suggestions;
+    }
+}
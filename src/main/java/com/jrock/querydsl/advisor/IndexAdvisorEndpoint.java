@@ -0,0 +1,32 @@
+package com.jrock.querydsl.advisor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 실행된 검색조건 모양별 실행계획과 인덱스 제안 (/actuator/indexadvisor)
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    public IndexAdvisorEndpoint(IndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @ReadOperation
+    public List<ShapeReport> report() {
+        return indexAdvisor.report();
+    }
+
+    @WriteOperation
+    public List<String> apply() {
+        return indexAdvisor.apply();
+    }
+}
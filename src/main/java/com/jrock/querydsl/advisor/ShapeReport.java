@@ -0,0 +1,25 @@
+package com.jrock.querydsl.advisor;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 검색조건 모양 하나의 실행계획 분석 결과
+ */
+@Getter
+@AllArgsConstructor
+public class ShapeReport {
+
+    private final String shape;
+    private final long executions;
+    private final String contentPlan;
+    private final String countPlan;
+    private final List<String> fullScans;
+    private final List<String> suggestedIndexes;
+
+    public boolean hasFullScan() {
+        return !fullScans.isEmpty();
+    }
+}
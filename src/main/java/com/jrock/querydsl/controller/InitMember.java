@@ -2,7 +2,9 @@ package com.jrock.querydsl.controller;
 
 import com.jrock.querydsl.entity.Member;
 import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.repository.MemberJpaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +12,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 @Profile("local") // active local 의 설정으로 된다.
 @Component
@@ -28,6 +32,9 @@ public class InitMember {
         @PersistenceContext
         EntityManager em;
 
+        @Autowired
+        MemberJpaRepository memberJpaRepository;
+
         @Transactional
         public void init() {
             Team teamA = new Team("teamA");
@@ -35,10 +42,12 @@ public class InitMember {
             em.persist(teamA);
             em.persist(teamB);
 
+            List<Member> members = new ArrayList<>();
             for (int i = 0; i < 100; i++) {
                 Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
+                members.add(new Member("member" + i, i, selectedTeam));
             }
+            memberJpaRepository.saveAllAndDetach(members); // JDBC 배치 insert
         }
     }
 }
@@ -1,29 +1,61 @@
 package com.jrock.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.CursorPage;
+import com.jrock.querydsl.dto.InvalidCursorException;
+import com.jrock.querydsl.dto.MemberCursor;
+import com.jrock.querydsl.dto.MemberIngestResult;
 import com.jrock.querydsl.dto.MemberSearchCondition;
 import com.jrock.querydsl.dto.MemberTeamDto;
 import com.jrock.querydsl.repository.MemberJpaRepository;
 import com.jrock.querydsl.repository.MemberRepository;
+import com.jrock.querydsl.service.MemberIngestService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_FETCH_SIZE = 1000;
+    private static final int STREAM_FLUSH_ROWS = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final MemberIngestService memberIngestService;
 
+    /**
+     * Accept: application/vnd.jrock.member-columns 로 요청하면 컬럼 단위 바이너리로 응답한다. (MemberColumnarCodec)
+     */
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
         return memberJpaRepository.search(condition);
     }
 
+    /**
+     * Accept: application/vnd.jrock.slim-page 로 요청하면 pageable, sort 메타데이터 없는 간단한 형식으로 응답한다. (SlimPageJsonWriter)
+     */
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageSimple(condition, pageable);
@@ -33,4 +65,70 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    /**
+     * 키셋(seek) 페이징
+     * 예) /v4/members?teamName=teamB&sort=age&size=20
+     *     다음 페이지는 응답의 nextCursor 를 cursor 파라미터로 넘긴다.
+     */
+    @GetMapping("/v4/members")
+    public CursorPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "id") String sort,
+                                                   @RequestParam(defaultValue = "20") int size) {
+        MemberCursor memberCursor = MemberCursor.decode(cursor, MemberCursor.SortKey.from(sort));
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return memberRepository.searchByCursor(condition, memberCursor, pageSize);
+    }
+
+    /**
+     * 전체 내보내기 (NDJSON, 한 줄에 회원 하나)
+     *   - 조회한 행을 모으지 않고 바로 응답에 쓴다. 결과 건수와 관계없이 메모리 사용량이 일정하다.
+     *   - STREAM_FLUSH_ROWS 마다 flush 해서 클라이언트가 받는 즉시 처리할 수 있게 한다.
+     */
+    @GetMapping(value = "/members/stream", produces = NDJSON)
+    public void streamMembers(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            memberJpaRepository.streamSearch(condition, STREAM_FETCH_SIZE, new Consumer<>() {
+                private long rows;
+
+                @Override
+                public void accept(MemberTeamDto dto) {
+                    try {
+                        generator.writeObject(dto);
+                        generator.writeRaw('\n');
+                        if (++rows % STREAM_FLUSH_ROWS == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 회원 대량 등록
+     *   - text/csv: 첫 줄은 헤더 (username,age,teamName)
+     *   - application/x-ndjson: 한 줄에 {"username":"member1","age":10,"teamName":"teamA"}
+     * 요청 본문을 @RequestBody 로 받지 않고 InputStream 으로 읽으면서 저장한다. (전체를 메모리에 올리지 않음)
+     */
+    @PostMapping(value = "/members/bulk", consumes = {"text/csv", NDJSON})
+    public MemberIngestResult bulkInsert(HttpServletRequest request) throws IOException {
+        MemberIngestService.Format format = MemberIngestService.Format.of(MediaType.parseMediaType(request.getContentType()));
+        return memberIngestService.ingest(request.getInputStream(), format);
+    }
+
+    /**
+     * 잘못된 커서, 정렬 키만 400 으로 응답한다. 그 외 IllegalArgumentException 은 서버 오류로 둔다.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidCursorException e) {
+        return e.getMessage();
+    }
 }
@@ -0,0 +1,24 @@
+package com.jrock.querydsl.controller;
+
+import com.jrock.querydsl.dto.TeamStatsDto;
+import com.jrock.querydsl.service.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 팀별 회원 수, 나이 합계, 평균, 최소, 최대 (team_stats, 회원 수와 무관하게 팀 수만큼만 읽는다)
+ */
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final TeamStatsService teamStatsService;
+
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsService.findAll();
+    }
+}
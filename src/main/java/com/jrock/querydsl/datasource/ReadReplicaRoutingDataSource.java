@@ -0,0 +1,54 @@
+package com.jrock.querydsl.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 읽기 전용 트랜잭션은 복제본으로, 나머지는 primary 로 보내는 DataSource
+ *   - @Transactional(readOnly = true) 여부는 트랜잭션 시작 후에 정해지므로 LazyConnectionDataSourceProxy 로 감싸서
+ *     실제 SQL 을 실행할 때 커넥션을 얻어야 한다. (ReplicaDataSourceConfig)
+ *   - 비정상으로 표시된 복제본은 커넥션을 얻으려고 시도하지 않는다. (ReplicaSet.next)
+ *   - 커넥션을 얻지 못한 복제본은 비정상으로 표시하고 다음 건강한 복제본을 시도한다.
+ *   - 건강한 복제본이 없거나 모두 실패하면 primary 를 사용한다.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaSet replicas;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                ReplicaSet.Replica replica = replicas.next();
+                if (replica == null) {
+                    break;
+                }
+                try {
+                    return replica.getDataSource().getConnection();
+                } catch (SQLException e) {
+                    replicas.markDown(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+}
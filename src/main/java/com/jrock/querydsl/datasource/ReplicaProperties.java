@@ -0,0 +1,40 @@
+package com.jrock.querydsl.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 전용 복제본(replica) 설정
+ *
+ * replica:
+ *   enabled: true
+ *   health-check-interval-ms: 5000
+ *   nodes:
+ *     - url: jdbc:h2:tcp://localhost/~/querydsl-replica1
+ *       username: sa
+ */
+@Getter
+@Setter
+@ConfigurationProperties("replica")
+public class ReplicaProperties {
+
+    private boolean enabled;
+    private long healthCheckIntervalMs = 5000;
+    private int validationTimeoutSeconds = 1;
+    private int maximumPoolSize = 10;
+    /** 복제본 커넥션을 기다리는 최대 시간. 느린 복제본 때문에 읽기가 오래 막히지 않도록 primary(기본 30초)보다 짧게 둔다. */
+    private long connectionTimeoutMs = 1000;
+    private List<Node> nodes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,142 @@
+package com.jrock.querydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * 복제본 DataSource 목록과 상태
+ *   - 건강한 복제본을 라운드로빈으로 고른다.
+ *   - 주기적으로 Connection.isValid() 로 상태를 확인한다. 커넥션을 얻다가 실패한 복제본은 바로 제외하고 다음 확인 때 복구된다.
+ *   - decorate() 로 커넥션을 꺼내는 DataSource 를 감쌀 수 있다. (SqlTraceConfig) 상태 확인과 close 는 원래 풀을 사용한다.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+
+    private final List<Replica> replicas;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaSet(List<? extends DataSource> dataSources, int validationTimeoutSeconds) {
+        List<Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < dataSources.size(); i++) {
+            replicas.add(new Replica("replica-" + i, dataSources.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(replicas);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * 다음 건강한 복제본. 모두 비정상이면 null
+     */
+    public Replica next() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    public void markDown(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            log.warn("replica {} marked down", replica.name, cause);
+        }
+        replica.healthy = false;
+    }
+
+    /**
+     * 복제본마다 커넥션을 꺼낼 DataSource 를 감싼다.
+     */
+    public void decorate(UnaryOperator<DataSource> decorator) {
+        for (Replica replica : replicas) {
+            replica.dataSource = decorator.apply(replica.pool);
+        }
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.pool.getConnection()) {
+                healthy = connection.isValid(validationTimeoutSeconds);
+            } catch (Exception e) {
+                healthy = false;
+            }
+
+            if (healthy != replica.healthy) {
+                log.warn("replica {} is {}", replica.name, healthy ? "up" : "down");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public synchronized void startHealthCheck(long intervalMillis) {
+        if (healthChecker != null) {
+            return;
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.pool instanceof AutoCloseable) {
+                ((AutoCloseable) replica.pool).close();
+            }
+        }
+    }
+
+    public static class Replica {
+        private final String name;
+        private final DataSource pool;
+        private volatile DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource pool) {
+            this.name = name;
+            this.pool = pool;
+            this.dataSource = pool;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
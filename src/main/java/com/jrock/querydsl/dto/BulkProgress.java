@@ -0,0 +1,31 @@
+package com.jrock.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 나누어 실행하는 벌크 연산 진행 상황 (MemberBulkOperations)
+ *   - lastId: 처리가 끝난(커밋된) 마지막 member_id 범위. 실패하면 이 값부터 다시 시작하면 된다.
+ *   - done: 마지막 범위까지 처리했는지
+ */
+@Data
+@AllArgsConstructor
+public class BulkProgress {
+
+    private int chunks;
+    private long affectedRows;
+    private long lastId;
+    private boolean done;
+
+    public static BulkProgress start(long afterId) {
+        return new BulkProgress(0, 0, afterId, false);
+    }
+
+    public BulkProgress next(long affected, long upperId) {
+        return new BulkProgress(chunks + 1, affectedRows + affected, upperId, false);
+    }
+
+    public BulkProgress finish() {
+        return new BulkProgress(chunks, affectedRows, lastId, true);
+    }
+}
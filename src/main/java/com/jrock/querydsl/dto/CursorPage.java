@@ -0,0 +1,20 @@
+package com.jrock.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 키셋(seek) 페이징 결과
+ *   - 전체 카운트를 구하지 않는다. 다음 페이지 존재 여부와 다음 커서만 내려준다.
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
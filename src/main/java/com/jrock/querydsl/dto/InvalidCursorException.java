@@ -0,0 +1,16 @@
+package com.jrock.querydsl.dto;
+
+/**
+ * 클라이언트가 보낸 커서, 정렬 키가 잘못된 경우 (MemberCursor)
+ * 컨트롤러는 이 예외만 400 으로 응답한다.
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
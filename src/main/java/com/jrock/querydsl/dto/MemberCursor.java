@@ -0,0 +1,100 @@
+package com.jrock.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ *   - 마지막으로 조회한 회원의 member_id 와 정렬 키를 담는다.
+ *   - 클라이언트에는 Base64 로 인코딩한 불투명(opaque) 문자열로만 전달한다.
+ *   - offset 을 사용하지 않으므로 몇 번째 페이지든 조회 비용이 같다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+    public enum SortKey {
+        ID, AGE;
+
+        public static SortKey from(String value) {
+            if (!StringUtils.hasText(value)) {
+                return ID;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException("지원하지 않는 정렬 키 입니다. sort=" + value);
+            }
+        }
+    }
+
+    private static final String DELIMITER = ":";
+
+    private final SortKey sortKey;
+    private final Long lastMemberId;
+    private final Integer lastAge;
+
+    /**
+     * 첫 페이지 (마지막 조회 위치 없음)
+     */
+    public static MemberCursor first(SortKey sortKey) {
+        return new MemberCursor(sortKey, null, null);
+    }
+
+    /**
+     * 마지막으로 조회한 행 다음부터 조회하는 커서
+     */
+    public static MemberCursor after(SortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, last.getMemberId(), last.getAge());
+    }
+
+    /**
+     * 커서가 없으면 요청한 정렬 키의 첫 페이지, 있으면 커서에 담긴 정렬 키를 그대로 사용한다.
+     * 토큰 수가 정렬 키에 맞지 않으면(ID 2개, AGE 3개) 잘못된 커서다.
+     */
+    public static MemberCursor decode(String cursor, SortKey sortKey) {
+        if (!StringUtils.hasText(cursor)) {
+            return first(sortKey);
+        }
+
+        String[] tokens;
+        SortKey cursorSortKey;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            tokens = decoded.split(DELIMITER, -1);
+            cursorSortKey = SortKey.valueOf(tokens[0]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("잘못된 커서 입니다. cursor=" + cursor, e);
+        }
+
+        int expected = cursorSortKey == SortKey.AGE ? 3 : 2;
+        if (tokens.length != expected) {
+            throw new InvalidCursorException("잘못된 커서 입니다. cursor=" + cursor);
+        }
+
+        try {
+            if (cursorSortKey == SortKey.AGE) {
+                return new MemberCursor(cursorSortKey, Long.valueOf(tokens[2]), Integer.valueOf(tokens[1]));
+            }
+            return new MemberCursor(cursorSortKey, Long.valueOf(tokens[1]), null);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("잘못된 커서 입니다. cursor=" + cursor, e);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey == SortKey.AGE
+                ? sortKey + DELIMITER + lastAge + DELIMITER + lastMemberId
+                : sortKey + DELIMITER + lastMemberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastMemberId == null;
+    }
+}
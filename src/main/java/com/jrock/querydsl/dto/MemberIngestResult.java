@@ -0,0 +1,28 @@
+package com.jrock.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 회원 대량 등록 결과
+ *   - rejections 는 앞에서부터 일부만 담는다. 전체 거부 건수는 rejected
+ */
+@Data
+@AllArgsConstructor
+public class MemberIngestResult {
+
+    private long accepted;
+    private long rejected;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private List<Rejection> rejections;
+
+    @Data
+    @AllArgsConstructor
+    public static class Rejection {
+        private long line;
+        private String reason;
+    }
+}
@@ -10,4 +10,15 @@ public class MemberSearchCondition {
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    // 회원명 검색 방식 (없으면 EXACT), 대소문자 무시 여부
+    private UsernameMatch usernameMatch;
+    private boolean usernameIgnoreCase;
+
+    /**
+     * 대소문자를 구분하는 완전 일치 (username = ?)
+     */
+    public boolean isExactUsername() {
+        return (usernameMatch == null || usernameMatch == UsernameMatch.EXACT) && !usernameIgnoreCase;
+    }
 }
@@ -0,0 +1,11 @@
+package com.jrock.querydsl.dto;
+
+/**
+ * 회원명 검색 방식
+ *   - EXACT: 같은 이름 (기본)
+ *   - PREFIX: 이름으로 시작
+ *   - CONTAINS: 이름을 포함
+ */
+public enum UsernameMatch {
+    EXACT, PREFIX, CONTAINS
+}
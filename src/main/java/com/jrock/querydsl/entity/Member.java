@@ -1,6 +1,9 @@
 package com.jrock.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 롬복 설명
@@ -8,18 +11,32 @@ import lombok.*;
  *   - @NoArgsConstructor AccessLevel.PROTECTED: 기본 생성자 막고 싶은데, JPA 스팩상 PROTECTED로 열어두어야 함
  *   - @ToString은 가급적 내부 필드만(연관관계 없는 필드만)
  * changeTeam() 으로 양방향 연관관계 한번에 처리(연관관계 편의 메소드)
+ *   - team.members 는 이미 로딩된 경우에만 맞춘다. 로딩되지 않은 컬렉션, 초기화되지 않은 팀 프록시는 건드리지 않는다.
+ *     (팀 회원이 50만명이어도 회원 한 명 추가, 이동 비용은 같다. Team.members 2차 캐시는 auto_evict_collection_cache 로 무효화)
+ * findById(em.find) 는 2차 캐시(ehcache.xml)를 먼저 확인한다.
  */
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"), // 팀 회원 조회 + 나이 범위 (IndexAdvisor)
+        @Index(name = "idx_member_age", columnList = "age")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
+    /**
+     * 대량 저장시 시퀀스를 행마다 호출하지 않도록 50개씩 미리 할당 받는다. (pooled optimizer)
+     */
     @Id
-    @GeneratedValue
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -45,8 +62,17 @@ public class Member {
         }
     }
 
+    /**
+     * 새 팀에는 항상 추가한다. (Team.addMember 는 컬렉션을 로딩하지 않는다, 팀이 프록시면 팀 행만 읽는다)
+     * 이전 팀은 이미 로딩된 경우에만 제거한다.
+     */
     public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team)) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null) {
+            team.addMember(this);
+        }
     }
 }
@@ -1,6 +1,11 @@
 package com.jrock.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,8 +17,14 @@ import java.util.List;
  *   - @NoArgsConstructor AccessLevel.PROTECTED: 기본 생성자 막고 싶은데, JPA 스팩상 PROTECTED로 열어두어야 함
  *   - @ToString은 가급적 내부 필드만(연관관계 없는 필드만)
  * changeTeam() 으로 양방향 연관관계 한번에 처리(연관관계 편의 메소드)
+ *
+ * 2차 캐시
+ *   - 팀은 작고 거의 바뀌지 않으므로 엔티티와 members 컬렉션(회원 id 목록)을 2차 캐시에 둔다. (ehcache.xml)
  */
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
@@ -23,10 +34,34 @@ public class Team {
     private Long id;
     private String name;
 
+    /**
+     * EXTRA: size(), contains() 는 컬렉션을 로딩하지 않고 SQL(count 등)로 확인한다.
+     * 연관관계의 주인은 member.team 이므로 이 컬렉션은 로딩 시점의 DB 상태를 보여준다.
+     */
     @OneToMany(mappedBy = "team")
+    @LazyCollection(LazyCollectionOption.EXTRA)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * 항상 컬렉션에 추가한다.
+     * 로딩되지 않은 mappedBy bag 은 add 해도 컬렉션을 로딩하지 않고, 추가를 기억해 두었다가 로딩할 때 합친다.
+     * (회원 수와 무관하게 비용이 같고, flush 전에도 같은 영속성 컨텍스트에서 추가한 회원이 보인다)
+     */
+    public void addMember(Member member) {
+        members.add(member);
+    }
+
+    /**
+     * 이미 로딩된 컬렉션에서만 제거한다.
+     */
+    public void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.jrock.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Objects;
+
+/**
+ * 팀별 회원 집계 (회원 수, 나이 합계, 최소, 최대)
+ *
+ * 조회할 때마다 group by 하지 않도록 회원이 바뀔 때 같은 트랜잭션에서 함께 갱신한다. (TeamStatsListener)
+ *   - 회원 수, 나이 합계는 증감분만 더한다. (update ... set member_count = member_count + ?)
+ *   - 최소, 최대는 추가된 나이와 비교해서 고친다. 빼기로는 계산할 수 없으므로 최소, 최대와 같은 나이가 빠질 때만
+ *     idx_member_team_age(team_id, age) 인덱스로 그 팀만 다시 구한다.
+ * JPQL 벌크 연산처럼 리스너를 거치지 않는 변경은 TeamStatsService.reconcile() 이 맞춘다. (벌크 변경 이벤트, 주기적 실행)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public Double getAgeAvg() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+
+    /**
+     * @return 값이 달라졌으면 true
+     */
+    public boolean reconcile(long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        boolean changed = this.memberCount != memberCount || this.ageSum != ageSum
+                || !Objects.equals(this.ageMin, ageMin) || !Objects.equals(this.ageMax, ageMax);
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+        return changed;
+    }
+}
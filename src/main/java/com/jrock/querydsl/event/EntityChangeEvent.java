@@ -0,0 +1,90 @@
+package com.jrock.querydsl.event;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * 엔티티 변경 이벤트 (트랜잭션 커밋 이후에만 발행)
+ *   - INSERT, UPDATE, DELETE: 하이버네이트 post-commit 이벤트에서 변환
+ *   - BULK: JPQL 벌크 연산처럼 영속성 컨텍스트를 거치지 않는 변경. 변경된 행을 알 수 없으므로 전체 무효화 용도로 사용
+ *     teamStatsApplied 이면 벌크 연산을 실행한 쪽에서 팀 집계를 이미 같은 트랜잭션에서 맞췄다. (팀 집계 전체 보정이 필요 없다)
+ *
+ * state, oldState 는 하이버네이트 프로퍼티 순서의 값 배열이다. 프로퍼티 이름으로 꺼내서 사용한다.
+ */
+@Getter
+public class EntityChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE, BULK
+    }
+
+    private final Type type;
+    private final Class<?> entityType;
+    private final Serializable id;
+    private final String[] propertyNames;
+    private final Object[] oldState;
+    private final Object[] state;
+    private final boolean teamStatsApplied;
+
+    public EntityChangeEvent(Type type, Class<?> entityType, Serializable id,
+                             String[] propertyNames, Object[] oldState, Object[] state) {
+        this(type, entityType, id, propertyNames, oldState, state, false);
+    }
+
+    private EntityChangeEvent(Type type, Class<?> entityType, Serializable id,
+                              String[] propertyNames, Object[] oldState, Object[] state, boolean teamStatsApplied) {
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.propertyNames = propertyNames;
+        this.oldState = oldState;
+        this.state = state;
+        this.teamStatsApplied = teamStatsApplied;
+    }
+
+    public static EntityChangeEvent bulk(Class<?> entityType) {
+        return new EntityChangeEvent(Type.BULK, entityType, null, new String[0], null, null, false);
+    }
+
+    /**
+     * 팀 집계는 이미 맞춘 벌크 변경 (TeamStatsListener.recompute)
+     */
+    public static EntityChangeEvent bulkTeamStatsApplied(Class<?> entityType) {
+        return new EntityChangeEvent(Type.BULK, entityType, null, new String[0], null, null, true);
+    }
+
+    public boolean isFor(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+
+    public boolean isBulk() {
+        return type == Type.BULK;
+    }
+
+    /**
+     * 변경 후 값 (DELETE 이면 null)
+     */
+    public Object get(String property) {
+        return valueOf(state, property);
+    }
+
+    /**
+     * 변경 전 값 (INSERT 이면 null, UPDATE 는 하이버네이트가 이전 상태를 알고 있을 때만 제공)
+     */
+    public Object getOld(String property) {
+        return valueOf(oldState, property);
+    }
+
+    private Object valueOf(Object[] values, String property) {
+        if (values == null) {
+            return null;
+        }
+        for (int i = 0; i < propertyNames.length; i++) {
+            if (propertyNames[i].equals(property)) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException(entityType.getSimpleName() + " 에 없는 프로퍼티 입니다. property=" + property);
+    }
+}
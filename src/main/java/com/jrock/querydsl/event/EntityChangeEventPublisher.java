@@ -0,0 +1,85 @@
+package com.jrock.querydsl.event;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+
+/**
+ * 하이버네이트 post-commit 이벤트를 스프링 EntityChangeEvent 로 변환해서 발행한다.
+ *
+ * 참고:
+ *   - POST_COMMIT_* 리스너는 트랜잭션이 커밋된 경우에만 호출된다. (롤백되면 onPostXxxCommitFailed)
+ *   - 커밋 직후 같은 쓰레드에서 호출되므로, 이벤트를 받는 쪽은 메모리 작업만 하고 DB 작업은 하지 않는다.
+ *   - JPQL 벌크 연산은 이 이벤트가 발생하지 않는다. 벌크 연산을 실행한 쪽에서 EntityChangeEvent.bulk() 를 직접 발행해야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeEventPublisher implements
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final ApplicationEventPublisher publisher;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publish(EntityChangeEvent.Type.INSERT, event.getPersister(), event.getId(), null, event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publish(EntityChangeEvent.Type.UPDATE, event.getPersister(), event.getId(), event.getOldState(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publish(EntityChangeEvent.Type.DELETE, event.getPersister(), event.getId(), event.getDeletedState(), null);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return true;
+    }
+
+    private void publish(EntityChangeEvent.Type type, EntityPersister persister, Serializable id,
+                         Object[] oldState, Object[] state) {
+        publisher.publishEvent(new EntityChangeEvent(
+                type, persister.getMappedClass(), id, persister.getPropertyNames(), oldState, state));
+    }
+}
@@ -0,0 +1,329 @@
+package com.jrock.querydsl.event;
+
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 회원 변경을 팀 집계(team_stats)에 반영한다.
+ *
+ * 하이버네이트 post insert/update/delete 이벤트(flush 시점)에서 팀별 증감분만 모아 두었다가,
+ * 커밋 직전(BeforeTransactionCompletionProcess)에 팀마다 update 한 번으로 반영한다.
+ *   - 같은 트랜잭션이므로 회원 변경과 집계가 함께 커밋되거나 함께 롤백된다.
+ *   - 증감분을 더하는 update 이므로 동시에 같은 팀을 바꿔도 값을 잃지 않는다. 데드락이 나지 않도록 팀 id 순서로 갱신한다.
+ *   - 최소, 최대는 추가된 나이와 비교해서 고친다. 빠진 나이가 현재 최소, 최대와 같으면(경계값) 그 팀만 다시 계산한다.
+ *   - 집계 행이 없는 팀(새 팀)은 그 팀의 회원으로 처음부터 계산해서 insert 한다. (recompute)
+ *     동시에 같은 팀의 행을 만들어 키 중복이 나면 savepoint 로 되돌리고 update 로 고친다. (DB 전용 merge, upsert 문법을 쓰지 않는다)
+ *   - UPDATE 에 이전 상태가 없으면(merge 등) 이전 팀을 알 수 없다. 새 팀은 다시 계산하고 이전 팀은 reconcile 이 맞춘다.
+ *
+ * changeTeam() 은 member.team 변경이므로 이전 팀 -1, 새 팀 +1 로 반영된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // 빠진 나이가 없거나 모두 최소, 최대 안쪽일 때만 갱신한다. (0건이면 집계 행이 없거나 경계값이 빠진 것이므로 다시 계산)
+    private static final String UPDATE_SQL = "update team_stats set"
+            + " member_count = member_count + ?, age_sum = age_sum + ?,"
+            + " age_min = case when age_min is null or age_min > ? then ? else age_min end,"
+            + " age_max = case when age_max is null or age_max < ? then ? else age_max end"
+            + " where team_id = ? and (? = 0 or (age_min < ? and age_max > ?))";
+    private static final String RECOMPUTE_UPDATE_SQL = "update team_stats set"
+            + " member_count = (select count(m.member_id) from member m where m.team_id = ?),"
+            + " age_sum = (select coalesce(sum(m.age), 0) from member m where m.team_id = ?),"
+            + " age_min = (select min(m.age) from member m where m.team_id = ?),"
+            + " age_max = (select max(m.age) from member m where m.team_id = ?)"
+            + " where team_id = ?";
+    private static final String RECOMPUTE_INSERT_SQL = "insert into team_stats (team_id, member_count, age_sum, age_min, age_max)"
+            + " select ?, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+            + " from member m where m.team_id = ?";
+    private static final String DELETE_SQL = "delete from team_stats where team_id = ?";
+
+    private final EntityManagerFactory emf;
+    private final Map<SharedSessionContractImplementor, Deltas> deltas = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityChangeEvent change = change(event.getPersister(), null, event.getState());
+            deltas(event.getSession()).added(teamId(change.get("team")), (Integer) change.get("age"));
+        } else if (event.getEntity() instanceof Team) {
+            // 회원이 없는 팀도 집계 행(0명)을 만든다.
+            deltas(event.getSession()).recompute((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityChangeEvent change = change(event.getPersister(), event.getOldState(), event.getState());
+        Long teamId = teamId(change.get("team"));
+        int age = (Integer) change.get("age");
+
+        if (event.getOldState() == null) {
+            log.debug("previous state unknown. recompute team stats. memberId={}", event.getId());
+            deltas(event.getSession()).recompute(teamId);
+            return;
+        }
+
+        Long oldTeamId = teamId(change.getOld("team"));
+        int oldAge = (Integer) change.getOld("age");
+        if (Objects.equals(oldTeamId, teamId) && oldAge == age) {
+            return;
+        }
+        Deltas deltas = deltas(event.getSession());
+        deltas.removed(oldTeamId, oldAge);
+        deltas.added(teamId, age);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityChangeEvent change = change(event.getPersister(), null, event.getDeletedState());
+            int age = (Integer) change.get("age");
+            deltas(event.getSession()).removed(teamId(change.get("team")), age);
+        } else if (event.getEntity() instanceof Team) {
+            deltas(event.getSession()).deletedTeams.add((Long) event.getId());
+        }
+    }
+
+    /**
+     * 리스너를 거치지 않는 변경(벌크 update 등)을 한 팀을 현재 트랜잭션의 커밋 직전에 다시 계산한다.
+     * 트랜잭션 안에서 호출해야 한다.
+     */
+    public void recompute(EntityManager em, Long... teamIds) {
+        Deltas pending = deltas(em.unwrap(EventSource.class));
+        for (Long teamId : teamIds) {
+            pending.recompute(teamId);
+        }
+    }
+
+    /**
+     * 팀 하나를 그 팀의 회원으로 다시 계산해서 집계 행을 고치거나 만든다. (TeamStatsService 보정도 같은 방법으로 만든다)
+     * 호출한 쪽 트랜잭션의 커넥션으로 실행한다.
+     */
+    public static void recompute(Connection connection, long teamId) throws SQLException {
+        if (recomputeUpdate(connection, teamId) > 0) {
+            return;
+        }
+
+        Savepoint savepoint = connection.setSavepoint();
+        try (PreparedStatement insert = connection.prepareStatement(RECOMPUTE_INSERT_SQL)) {
+            insert.setLong(1, teamId);
+            insert.setLong(2, teamId);
+            insert.executeUpdate();
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) {
+                throw e;
+            }
+            // 다른 트랜잭션이 먼저 만들었다. (PostgreSQL 은 실패한 문장 이후 트랜잭션을 쓸 수 없으므로 savepoint 로 되돌린다)
+            connection.rollback(savepoint);
+            recomputeUpdate(connection, teamId);
+        }
+    }
+
+    private static int recomputeUpdate(Connection connection, long teamId) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(RECOMPUTE_UPDATE_SQL)) {
+            for (int i = 1; i <= 5; i++) {
+                update.setLong(i, teamId);
+            }
+            return update.executeUpdate();
+        }
+    }
+
+    /**
+     * SQLState 23xxx: 무결성 제약조건 위반
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 트랜잭션마다 처음 변경이 생길 때 커밋 직전 반영, 완료 후 정리 작업을 등록한다.
+     */
+    private Deltas deltas(EventSource session) {
+        return deltas.computeIfAbsent(session, key -> {
+            Deltas created = new Deltas();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess(
+                    (AfterTransactionCompletionProcess) (success, completed) -> deltas.remove(completed));
+            return created;
+        });
+    }
+
+    private void apply(SessionImplementor session) {
+        Deltas pending = deltas.remove(session);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        session.doWork(connection -> pending.apply(connection));
+    }
+
+    private static EntityChangeEvent change(EntityPersister persister, Object[] oldState, Object[] state) {
+        return new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, persister.getMappedClass(), null,
+                persister.getPropertyNames(), oldState, state);
+    }
+
+    /**
+     * 프록시를 초기화하지 않고 팀 id 를 꺼낸다.
+     */
+    private static Long teamId(Object team) {
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team != null ? ((Team) team).getId() : null;
+    }
+
+    private static class Deltas {
+
+        private final Map<Long, Delta> byTeam = new TreeMap<>();
+        private final Set<Long> recompute = new TreeSet<>();
+        private final Set<Long> deletedTeams = new TreeSet<>();
+
+        void added(Long teamId, int age) {
+            if (teamId != null) {
+                byTeam.computeIfAbsent(teamId, k -> new Delta()).added(age);
+            }
+        }
+
+        void removed(Long teamId, int age) {
+            if (teamId != null) {
+                byTeam.computeIfAbsent(teamId, k -> new Delta()).removed(age);
+            }
+        }
+
+        void recompute(Long teamId) {
+            if (teamId != null) {
+                recompute.add(teamId);
+            }
+        }
+
+        boolean isEmpty() {
+            return byTeam.isEmpty() && recompute.isEmpty() && deletedTeams.isEmpty();
+        }
+
+        void apply(Connection connection) throws SQLException {
+            Set<Long> teamIds = new TreeSet<>(byTeam.keySet());
+            teamIds.addAll(recompute);
+            teamIds.removeAll(deletedTeams);
+
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+                for (Long teamId : teamIds) {
+                    if (!recompute.contains(teamId) && byTeam.get(teamId).update(update, teamId) > 0) {
+                        continue;
+                    }
+                    TeamStatsListener.recompute(connection, teamId);
+                }
+            }
+
+            if (deletedTeams.isEmpty()) {
+                return;
+            }
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                for (Long teamId : deletedTeams) {
+                    delete.setLong(1, teamId);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * 팀 하나의 증감분. 최소, 최대를 고치기 위해 추가된 나이와 빠진 나이의 범위도 기억한다.
+     */
+    private static class Delta {
+
+        private long count;
+        private long ageSum;
+        private Integer addedMin;
+        private Integer addedMax;
+        private Integer removedMin;
+        private Integer removedMax;
+
+        void added(int age) {
+            count++;
+            ageSum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void removed(int age) {
+            count--;
+            ageSum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+
+        /**
+         * @return 갱신한 행 수. 0 이면 다시 계산해야 한다.
+         */
+        int update(PreparedStatement update, long teamId) throws SQLException {
+            update.setLong(1, count);
+            update.setLong(2, ageSum);
+            update.setObject(3, addedMin, Types.INTEGER);
+            update.setObject(4, addedMin, Types.INTEGER);
+            update.setObject(5, addedMax, Types.INTEGER);
+            update.setObject(6, addedMax, Types.INTEGER);
+            update.setLong(7, teamId);
+            update.setInt(8, removedMin == null ? 0 : 1);
+            update.setObject(9, removedMin, Types.INTEGER);
+            update.setObject(10, removedMax, Types.INTEGER);
+            return update.executeUpdate();
+        }
+    }
+}
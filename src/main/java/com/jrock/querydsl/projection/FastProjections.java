@@ -0,0 +1,315 @@
+package com.jrock.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 리플렉션 없는 DTO 프로젝션
+ *
+ * Projections.bean(), fields() 는 행마다 리플렉션(Method.invoke, Field.set)으로 값을 넣고,
+ * Projections.constructor(), @QueryProjection 도 행마다 Constructor.newInstance 를 호출한다.
+ * 여기서는 DTO 클래스마다 한 번만 접근자를 만들어 캐시하고, 행 매핑은 만들어 둔 접근자만 호출한다.
+ *   - bean(): 기본 생성자와 setter 를 LambdaMetafactory 로 Supplier, BiConsumer 람다로 만든다.
+ *   - fields(): 필드 setter MethodHandle (private 필드 포함)
+ *   - constructor(): 생성자 MethodHandle 을 Object[] 를 펼쳐서 받는 형태로 바꿔 둔다.
+ *
+ * 사용법은 Projections 와 같다. 프로퍼티 이름이 다르면 ExpressionUtils.as(), expr.as("name") 로 별칭을 준다.
+ *   FastProjections.bean(MemberDto.class, member.username, member.age)
+ *   FastProjections.fields(UserDto.class, member.username.as("name"), member.age)
+ *   FastProjections.constructor(MemberTeamDto.class, member.id, member.username, member.age, team.id, team.name)
+ */
+public final class FastProjections {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<List<Object>, RowMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    public static <T> FactoryExpression<T> bean(Class<T> type, Expression<?>... exprs) {
+        List<Object> key = key("bean", type, aliases(exprs));
+        return new FastProjection<>(type, exprs, mapper(key, () -> setterMapper(type, exprs)));
+    }
+
+    public static <T> FactoryExpression<T> fields(Class<T> type, Expression<?>... exprs) {
+        List<Object> key = key("fields", type, aliases(exprs));
+        return new FastProjection<>(type, exprs, mapper(key, () -> fieldMapper(type, exprs)));
+    }
+
+    public static <T> FactoryExpression<T> constructor(Class<T> type, Expression<?>... exprs) {
+        List<Object> key = key("constructor", type, types(exprs));
+        return new FastProjection<>(type, exprs, mapper(key, () -> constructorMapper(type, exprs)));
+    }
+
+    /**
+     * 한 행(select 절 순서의 값 배열)을 DTO 로 변환
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(Object[] row);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RowMapper<T> mapper(List<Object> key, Supplier<RowMapper<T>> factory) {
+        return (RowMapper<T>) MAPPERS.computeIfAbsent(key, k -> factory.get());
+    }
+
+    private static List<Object> key(String kind, Class<?> type, List<?> columns) {
+        List<Object> key = new ArrayList<>(columns.size() + 2);
+        key.add(kind);
+        key.add(type);
+        key.addAll(columns);
+        return key;
+    }
+
+    // ---- bean (setter) ----
+
+    @SuppressWarnings("unchecked")
+    private static <T> RowMapper<T> setterMapper(Class<T> type, Expression<?>[] exprs) {
+        Supplier<Object> factory = defaultConstructor(type);
+        BiConsumer<Object, Object>[] setters = new BiConsumer[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            setters[i] = setter(type, aliasOf(exprs[i]), exprs[i].getType());
+        }
+
+        return row -> {
+            Object bean = factory.get();
+            for (int i = 0; i < setters.length; i++) {
+                Object value = row[i];
+                if (value != null) {
+                    setters[i].accept(bean, value);
+                }
+            }
+            return (T) bean;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> defaultConstructor(Class<?> type) {
+        try {
+            MethodHandle constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                    "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + " 에 public 기본 생성자가 없습니다.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setter(Class<?> type, String property, Class<?> valueType) {
+        Method method = findSetter(type, property, valueType);
+        try {
+            MethodHandle setter = LOOKUP.unreflect(method);
+            Class<?> parameterType = wrap(method.getParameterTypes()[0]);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                    "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    setter,
+                    MethodType.methodType(void.class, type, parameterType));
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException(type.getName() + "." + method.getName() + " 접근자를 만들 수 없습니다.", e);
+        }
+    }
+
+    private static Method findSetter(Class<?> type, String property, Class<?> valueType) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name)
+                    && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())
+                    && isAssignable(method.getParameterTypes()[0], valueType)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + name + "(" + valueType.getSimpleName() + ") 가 없습니다.");
+    }
+
+    // ---- fields ----
+
+    private static <T> RowMapper<T> fieldMapper(Class<T> type, Expression<?>[] exprs) {
+        Supplier<Object> factory = defaultConstructor(type);
+        MethodHandle[] setters = new MethodHandle[exprs.length];
+        for (int i = 0; i < exprs.length; i++) {
+            setters[i] = fieldSetter(type, aliasOf(exprs[i]));
+        }
+
+        return row -> {
+            Object bean = factory.get();
+            try {
+                for (int i = 0; i < setters.length; i++) {
+                    Object value = row[i];
+                    if (value != null) {
+                        setters[i].invokeExact(bean, value);
+                    }
+                }
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(type.getName() + " 필드에 값을 넣을 수 없습니다.", e);
+            }
+            return type.cast(bean);
+        };
+    }
+
+    private static MethodHandle fieldSetter(Class<?> type, String property) {
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(property);
+                MethodHandle setter = MethodHandles.privateLookupIn(current, LOOKUP).unreflectSetter(field);
+                return setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (NoSuchFieldException e) {
+                // 상위 클래스에서 찾는다.
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + "." + property + " 필드에 접근할 수 없습니다.", e);
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + property + " 필드가 없습니다.");
+    }
+
+    // ---- constructor ----
+
+    private static <T> RowMapper<T> constructorMapper(Class<T> type, Expression<?>[] exprs) {
+        Constructor<?> constructor = findConstructor(type, exprs);
+        MethodHandle spread;
+        try {
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+            spread = handle.asType(handle.type().generic()).asSpreader(Object[].class, exprs.length);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 생성자에 접근할 수 없습니다.", e);
+        }
+
+        return row -> {
+            try {
+                return type.cast((Object) spread.invokeExact(row));
+            } catch (Throwable e) {
+                throw new IllegalArgumentException(type.getName() + " 생성자 호출에 실패했습니다.", e);
+            }
+        };
+    }
+
+    private static Constructor<?> findConstructor(Class<?> type, Expression<?>[] exprs) {
+        for (Constructor<?> constructor : type.getConstructors()) {
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != exprs.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.length && matches; i++) {
+                matches = isAssignable(parameterTypes[i], exprs[i].getType());
+            }
+            if (matches) {
+                return constructor;
+            }
+        }
+        throw new IllegalArgumentException(type.getName() + " 에 " + types(exprs) + " 생성자가 없습니다.");
+    }
+
+    // ---- 공통 ----
+
+    private static List<Object> aliases(Expression<?>[] exprs) {
+        List<Object> aliases = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            aliases.add(aliasOf(expr));
+            aliases.add(expr.getType());
+        }
+        return aliases;
+    }
+
+    private static List<Object> types(Expression<?>[] exprs) {
+        List<Object> types = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            types.add(expr.getType());
+        }
+        return types;
+    }
+
+    private static String aliasOf(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return ((Path<?>) expr).getMetadata().getName();
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            Expression<?> alias = ((Operation<?>) expr).getArg(1);
+            if (alias instanceof Path) {
+                return ((Path<?>) alias).getMetadata().getName();
+            }
+        }
+        throw new IllegalArgumentException("별칭이 없는 표현식 입니다. as() 로 별칭을 지정하세요. expr=" + expr);
+    }
+
+    private static boolean isAssignable(Class<?> target, Class<?> valueType) {
+        return wrap(target).isAssignableFrom(wrap(valueType));
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * Querydsl 이 select 절을 만들 때는 getArgs() 를, 결과 행을 변환할 때는 newInstance() 를 호출한다.
+     */
+    static final class FastProjection<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final RowMapper<T> mapper;
+
+        FastProjection(Class<? extends T> type, Expression<?>[] args, RowMapper<T> mapper) {
+            super(type);
+            this.args = List.copyOf(Arrays.asList(args));
+            this.mapper = mapper;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        public T newInstance(Object... row) {
+            return mapper.map(row);
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof FastProjection)) {
+                return false;
+            }
+            FastProjection<?> other = (FastProjection<?>) obj;
+            return getType().equals(other.getType()) && args.equals(other.args);
+        }
+    }
+}
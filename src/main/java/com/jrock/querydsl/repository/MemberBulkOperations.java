@@ -0,0 +1,276 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.BulkProgress;
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import com.jrock.querydsl.event.TeamStatsListener;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Consumer;
+
+import static com.jrock.querydsl.entity.QMember.member;
+
+/**
+ * 회원 벌크 수정, 삭제를 member_id 범위로 나누어 실행한다.
+ *
+ * 테이블 전체에 update/delete 한 번을 실행하면 끝날 때까지 잠금을 오래 잡고 있게 된다.
+ *   - member_id 순서로 chunkSize 행씩 범위를 정하고(PK 인덱스), 범위마다 별도의 트랜잭션으로 커밋한다.
+ *   - 범위마다 진행 상황(BulkProgress)을 알려 준다. 실패하면 BulkOperationException 의 진행 상황(lastId)부터 다시 시작할 수 있다.
+ *   - 하이버네이트가 벌크 연산마다 Member 2차 캐시와 Team.members 컬렉션 캐시, 쿼리 캐시를 무효화한다.
+ *   - 끝나면(실패해도 커밋된 범위가 있으면) EntityChangeEvent.bulk(Member) 를 한 번 발행한다. (카운트 캐시, 메모리 색인, 팀 집계)
+ *
+ * 팀 재배치, 병합(reassignTeam, mergeTeam)은 나누지 않고 update 한 번으로 실행한다. (회원을 로딩해서 changeTeam 하지 않는다)
+ *   - 회원명 조건은 trigram 색인을 쓰지 않고 LIKE 로만 고른다. (늦게 반영된 색인 때문에 옮길 회원이 빠지지 않는다)
+ *   - 두 팀의 집계(team_stats)만 같은 트랜잭션에서 다시 계산한다. (팀 집계 전체 보정을 하지 않는다)
+ *
+ * 이미 트랜잭션 안에서 호출하면 범위마다 커밋할 수 없으므로 그 트랜잭션에 참여한다.
+ * 이때는 먼저 flush 해서 변경 내용을 반영한다.
+ * 쓰레드에 영속성 컨텍스트가 묶여 있으면(트랜잭션, OSIV) 끝나고 clear 한다. (이전에 로딩된 회원, Team.members 가 벌크 변경 전 값으로 남지 않는다)
+ * 이벤트는 커밋 후에 발행한다.
+ */
+@Slf4j
+@Component
+public class MemberBulkOperations {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final ApplicationEventPublisher publisher;
+    private final MemberUsernameSearch usernameSearch;
+    private final TeamStatsListener teamStatsListener;
+    private final int chunkSize;
+
+    public MemberBulkOperations(EntityManager em, EntityManagerFactory emf, PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher publisher, MemberUsernameSearch usernameSearch,
+                                TeamStatsListener teamStatsListener,
+                                @Value("${member.bulk.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.publisher = publisher;
+        this.usernameSearch = usernameSearch;
+        this.teamStatsListener = teamStatsListener;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 예) update(member.age.lt(28), set -> set.set(member.username, "비회원"))
+     */
+    public BulkProgress update(Predicate where, Consumer<JPAUpdateClause> set) {
+        return update(where, set, 0, chunkSize, progress -> {});
+    }
+
+    public BulkProgress update(Predicate where, Consumer<JPAUpdateClause> set,
+                               long afterId, int chunkSize, Consumer<BulkProgress> listener) {
+        return execute(afterId, chunkSize, listener, (lowerId, upperId) -> {
+            JPAUpdateClause clause = queryFactory.update(member);
+            set.accept(clause);
+            return clause.where(where, member.id.gt(lowerId), member.id.loe(upperId)).execute();
+        });
+    }
+
+    public BulkProgress delete(Predicate where) {
+        return delete(where, 0, chunkSize, progress -> {});
+    }
+
+    public BulkProgress delete(Predicate where, long afterId, int chunkSize, Consumer<BulkProgress> listener) {
+        return execute(afterId, chunkSize, listener, (lowerId, upperId) -> queryFactory
+                .delete(member)
+                .where(where, member.id.gt(lowerId), member.id.loe(upperId))
+                .execute());
+    }
+
+    /**
+     * fromTeam 회원 중 검색조건(회원명, 나이)에 맞는 회원을 toTeam 으로 옮긴다.
+     *   update member set team_id = :toTeamId where team_id = :fromTeamId and ...
+     * 팀은 id 로 지정하므로 검색조건의 teamName 은 사용할 수 없다.
+     *
+     * @return 옮긴 회원 수
+     */
+    public long reassignTeam(Long fromTeamId, Long toTeamId, MemberSearchCondition condition) {
+        if (StringUtils.hasText(condition.getTeamName())) {
+            throw new IllegalArgumentException("팀은 fromTeamId 로 지정합니다. teamName=" + condition.getTeamName());
+        }
+        return changeTeam(fromTeamId, toTeamId, condition, false);
+    }
+
+    /**
+     * fromTeam 의 모든 회원을 toTeam 으로 옮기고 fromTeam 을 삭제한다.
+     *
+     * @return 옮긴 회원 수
+     */
+    public long mergeTeam(Long fromTeamId, Long toTeamId) {
+        return changeTeam(fromTeamId, toTeamId, new MemberSearchCondition(), true);
+    }
+
+    /**
+     * 하이버네이트가 벌크 update 후 Member 2차 캐시와 Team.members 컬렉션 캐시를 무효화한다.
+     * 팀 집계(team_stats)는 두 팀만 커밋 직전에 다시 계산하고, 메모리 색인은 벌크 변경 이벤트로 맞춘다.
+     * 병합하면 팀 삭제를 바로 flush 한다. (트랜잭션에 참여한 경우 끝나고 clear 해도 삭제가 버려지지 않는다)
+     */
+    private long changeTeam(Long fromTeamId, Long toTeamId, MemberSearchCondition condition, boolean merge) {
+        if (fromTeamId.equals(toTeamId)) {
+            throw new IllegalArgumentException("같은 팀으로 옮길 수 없습니다. teamId=" + fromTeamId);
+        }
+
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean bound = TransactionSynchronizationManager.hasResource(emf);
+        if (joined) {
+            em.flush();
+        }
+
+        long moved = 0;
+        try {
+            moved = chunkTransaction.execute(status -> {
+                Team from = findTeam(fromTeamId);
+                Team to = findTeam(toTeamId);
+
+                long updated = queryFactory
+                        .update(member)
+                        .set(member.team, to)
+                        .where(
+                                member.team.id.eq(fromTeamId),
+                                usernameSearch.likePredicate(condition),
+                                condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                                condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null)
+                        .execute();
+
+                if (merge) {
+                    em.remove(from);
+                    em.flush();
+                }
+                teamStatsListener.recompute(em, fromTeamId, toTeamId);
+                return updated;
+            });
+            log.info("members reassigned. fromTeamId={}, toTeamId={}, moved={}, merge={}", fromTeamId, toTeamId, moved, merge);
+            return moved;
+        } finally {
+            if (bound) {
+                em.clear();
+            }
+            if (moved > 0 || merge) {
+                publishBulkChange(EntityChangeEvent.bulkTeamStatsApplied(Member.class), joined);
+            }
+        }
+    }
+
+    private Team findTeam(Long teamId) {
+        Team team = em.find(Team.class, teamId);
+        if (team == null) {
+            throw new IllegalArgumentException("존재하지 않는 팀 입니다. teamId=" + teamId);
+        }
+        return team;
+    }
+
+    private BulkProgress execute(long afterId, int chunkSize, Consumer<BulkProgress> listener, Chunk chunk) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 0보다 커야 합니다. chunkSize=" + chunkSize);
+        }
+
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean bound = TransactionSynchronizationManager.hasResource(emf);
+        if (joined) {
+            em.flush();
+        }
+
+        BulkProgress progress = BulkProgress.start(afterId);
+        try {
+            while (true) {
+                long lowerId = progress.getLastId();
+                long[] result = chunkTransaction.execute(status -> {
+                    Long upperId = upperId(lowerId, chunkSize);
+                    return upperId == null ? null : new long[]{upperId, chunk.execute(lowerId, upperId)};
+                });
+                if (result == null) {
+                    break;
+                }
+                progress = progress.next(result[1], result[0]);
+                listener.accept(progress);
+            }
+            progress = progress.finish();
+            log.info("member bulk operation done. chunks={}, affected={}", progress.getChunks(), progress.getAffectedRows());
+            return progress;
+        } catch (RuntimeException e) {
+            throw new BulkOperationException(progress, e);
+        } finally {
+            if (bound) {
+                em.clear();
+            }
+            if (progress.getChunks() > 0) {
+                publishBulkChange(EntityChangeEvent.bulk(Member.class), joined);
+            }
+        }
+    }
+
+    /**
+     * lowerId 다음부터 chunkSize 번째 member_id. 남은 행이 chunkSize 보다 적으면 마지막 member_id, 없으면 null
+     */
+    private Long upperId(long lowerId, int chunkSize) {
+        Long upperId = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(member.id.gt(lowerId))
+                .orderBy(member.id.asc())
+                .offset(chunkSize - 1)
+                .limit(1)
+                .fetchOne();
+        if (upperId != null) {
+            return upperId;
+        }
+        return queryFactory
+                .select(member.id.max())
+                .from(member)
+                .where(member.id.gt(lowerId))
+                .fetchOne();
+    }
+
+    private void publishBulkChange(EntityChangeEvent event, boolean joined) {
+        if (!joined) {
+            publisher.publishEvent(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publisher.publishEvent(event);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        long execute(long lowerId, long upperId);
+    }
+
+    /**
+     * 중간에 실패한 벌크 연산. progress.lastId 까지는 커밋되어 있다. (트랜잭션에 참여한 경우는 제외)
+     */
+    @Getter
+    public static class BulkOperationException extends RuntimeException {
+
+        private final BulkProgress progress;
+
+        public BulkOperationException(BulkProgress progress, Throwable cause) {
+            super("벌크 연산이 중간에 실패했습니다. lastId=" + progress.getLastId(), cause);
+            this.progress = progress;
+        }
+    }
+}
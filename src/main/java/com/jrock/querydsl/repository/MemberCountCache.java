@@ -0,0 +1,217 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 검색의 전체 카운트 캐시
+ *   - 키: 정규화한 검색조건 (빈 문자열과 null 은 같은 조건이다. 동적 쿼리에서 둘 다 무시되기 때문)
+ *   - 최대 개수를 넘으면 가장 오래 사용하지 않은 조건부터 제거한다. (LRU)
+ *   - ttl 이 지나면 stale 구간 동안은 이전 값을 바로 돌려주고, 백그라운드에서 다시 카운트한다. (stale-while-revalidate)
+ *   - Member, Team 이 변경(커밋)되면 전체를 무효화한다.
+ *
+ * 무효화 이전에 시작한 카운트 결과가 무효화 이후에 캐시에 들어가지 않도록 세대(generation) 번호를 같이 저장한다.
+ * 백그라운드 갱신은 읽기 전용 트랜잭션 안에서 실행한다. (복제본 라우팅, 트랜잭션 범위의 EntityManager)
+ * 그러므로 countQuery 는 호출될 때마다 쿼리를 새로 만들어야 한다. (다른 세션에서 만든 쿼리 객체를 넘기지 않는다)
+ */
+@Slf4j
+@Component
+public class MemberCountCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long staleMillis;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<MemberSearchCondition, Entry> entries;
+    private final Set<MemberSearchCondition> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final TransactionOperations refreshTransaction;
+
+    @Autowired
+    public MemberCountCache(PlatformTransactionManager transactionManager,
+                            @Value("${member.count-cache.enabled:true}") boolean enabled,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize,
+                            @Value("${member.count-cache.ttl-ms:30000}") long ttlMillis,
+                            @Value("${member.count-cache.stale-ms:30000}") long staleMillis) {
+        this(readOnly(transactionManager), enabled, maxSize, ttlMillis, staleMillis);
+    }
+
+    MemberCountCache(TransactionOperations refreshTransaction, boolean enabled, int maxSize, long ttlMillis, long staleMillis) {
+        this.refreshTransaction = refreshTransaction;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchCondition, Entry> eldest) {
+                return size() > MemberCountCache.this.maxSize;
+            }
+        };
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "member-count-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 캐시된 카운트를 조회하고, 없거나 무효화된 경우 countQuery 를 실행해서 저장한다.
+     * countQuery 는 stale 갱신시 다른 쓰레드에서 실행될 수 있다.
+     */
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        if (!enabled) {
+            return countQuery.getAsLong();
+        }
+
+        MemberSearchCondition key = normalize(condition);
+        Entry entry = lookup(key);
+        long now = System.currentTimeMillis();
+
+        if (entry != null) {
+            long age = now - entry.loadedAt;
+            if (age < ttlMillis) {
+                return entry.count;
+            }
+            if (age < ttlMillis + staleMillis) {
+                refreshAsync(key, countQuery);
+                return entry.count;
+            }
+        }
+
+        return load(key, countQuery);
+    }
+
+    /**
+     * 신선한(ttl 이내) 값이 있을 때만 반환한다. 없으면 null
+     */
+    public Long getIfFresh(MemberSearchCondition condition) {
+        if (!enabled) {
+            return null;
+        }
+
+        Entry entry = lookup(normalize(condition));
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMillis) {
+            return entry.count;
+        }
+        return null;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (event.isFor(Member.class) || event.isFor(Team.class)) {
+            invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Entry lookup(MemberSearchCondition key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.generation == generation.get() ? entry : null;
+        }
+    }
+
+    private long load(MemberSearchCondition key, LongSupplier countQuery) {
+        long startGeneration = generation.get();
+        long count = countQuery.getAsLong();
+
+        synchronized (entries) {
+            if (startGeneration == generation.get()) {
+                entries.put(key, new Entry(count, System.currentTimeMillis(), startGeneration));
+            }
+        }
+        return count;
+    }
+
+    private void refreshAsync(MemberSearchCondition key, LongSupplier countQuery) {
+        if (!refreshing.add(key)) {
+            return; // 이미 갱신중
+        }
+
+        try {
+            refresher.execute(() -> {
+                try {
+                    refreshTransaction.executeWithoutResult(status -> load(key, countQuery));
+                } catch (RuntimeException e) {
+                    log.warn("count cache refresh failed. condition={}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    static MemberSearchCondition normalize(MemberSearchCondition condition) {
+        MemberSearchCondition key = new MemberSearchCondition();
+        key.setUsername(StringUtils.hasText(condition.getUsername()) ? condition.getUsername() : null);
+        key.setTeamName(StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null);
+        key.setAgeGoe(condition.getAgeGoe());
+        key.setAgeLoe(condition.getAgeLoe());
+        key.setUsernameMatch(condition.getUsernameMatch() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT);
+        key.setUsernameIgnoreCase(condition.isUsernameIgnoreCase());
+        return key;
+    }
+
+    private static class Entry {
+        private final long count;
+        private final long loadedAt;
+        private final long generation;
+
+        private Entry(long count, long loadedAt, long generation) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+            this.generation = generation;
+        }
+    }
+}
@@ -6,17 +6,25 @@ import com.jrock.querydsl.dto.QMemberTeamDto;
 import com.jrock.querydsl.entity.Member;
 import com.jrock.querydsl.entity.QMember;
 import com.jrock.querydsl.entity.QTeam;
+import com.jrock.querydsl.projection.FastProjections;
+import com.jrock.querydsl.search.MemberSnapshot;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.jrock.querydsl.entity.QMember.*;
 import static com.jrock.querydsl.entity.QTeam.*;
@@ -33,9 +41,19 @@ public class MemberJpaRepository {
      */
     private final EntityManager em; //JPA 접근할 떄 EntityManager 필요
     private final JPAQueryFactory queryFactory;
+    private final int batchSize;
+    private final MemberQueryMetrics metrics;
+    private final MemberUsernameSearch usernameSearch;
+    private final MemberSnapshot snapshot;
 
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+                               MemberQueryMetrics metrics, MemberUsernameSearch usernameSearch, MemberSnapshot snapshot) {
         this.em = em;
+        this.batchSize = batchSize;
+        this.metrics = metrics;
+        this.usernameSearch = usernameSearch;
+        this.snapshot = snapshot;
 //        this.queryFactory = queryFactory; // 이렇게 하면 @Bean 으로 등록 해주어야한다. 현재는 엔트리 포인트에 등록해 놓음, 이렇게 하면 @RequiredArgsConstructor 를 사용가능. 테스트 코드 짤 떄 약간 귀찮.
         this.queryFactory = new JPAQueryFactory(em);
     }
@@ -44,6 +62,36 @@ public class MemberJpaRepository {
         em.persist(member);
     }
 
+    /**
+     * 대량 저장
+     *   - hibernate.jdbc.batch_size 만큼 insert 를 모아서 JDBC 배치로 보낸다. (order_inserts 로 엔티티 타입별 정렬)
+     *   - batchSize 건마다 flush 하고, 저장한 회원만 detach 해서 영속성 컨텍스트(1차 캐시)가 계속 커지지 않게 한다.
+     *   - clear() 를 하지 않으므로 호출한 쪽이 같은 트랜잭션에서 다루던 다른 엔티티(팀 등)는 그대로 영속 상태이다.
+     *
+     * 주의: 넘겨준 회원은 저장 후 준영속 상태가 된다. (메서드 이름에 드러냄)
+     *      이후에 회원을 변경하려면 다시 조회해야 한다.
+     */
+    @Transactional
+    public long saveAllAndDetach(List<Member> members) {
+        int from = 0;
+        for (int i = 0; i < members.size(); i++) {
+            em.persist(members.get(i));
+            if ((i + 1) % batchSize == 0) {
+                flushAndDetach(members, from, i + 1);
+                from = i + 1;
+            }
+        }
+        flushAndDetach(members, from, members.size());
+        return members.size();
+    }
+
+    private void flushAndDetach(List<Member> members, int from, int to) {
+        em.flush();
+        for (int i = from; i < to; i++) {
+            em.detach(members.get(i));
+        }
+    }
+
     public Optional<Member> findById(Long id) {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
@@ -80,7 +128,7 @@ public class MemberJpaRepository {
 
         // StringUtils.isEmpty() deprecated, StringUtils.hasText, static import
         if (StringUtils.hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(usernameSearch.predicate(condition)); // 완전 일치이면 member.username.eq(condition.getUsername())
         }
 
         if (StringUtils.hasText(condition.getTeamName())) {
@@ -95,7 +143,7 @@ public class MemberJpaRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -104,15 +152,28 @@ public class MemberJpaRepository {
                         team.name))
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
+                .where(builder);
+
+        return metrics.content("MemberJpaRepository.searchByBuilder", condition, query::fetch);
     }
 
     /**
      * 동적 쿼리와 성능 최적화 조회 - Where절 파라미터 사용 (권장)
+     * 읽기 전용 트랜잭션이므로 복제본이 있으면 복제본에서 조회한다. (/v1/members, ReadReplicaRoutingDataSource)
+     * member.snapshot.enabled=true 이고 스냅샷이 최신이면 DB 를 조회하지 않는다. (MemberSnapshot, 커밋된 데이터만 보인다)
      */
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        if (snapshot.isReady()) {
+            List<MemberTeamDto> result = metrics.time("MemberJpaRepository.search", MemberSearchShape.of(condition),
+                    MemberQueryMetrics.SNAPSHOT, () -> snapshot.search(condition));
+            if (result != null) {
+                metrics.recordRows("MemberJpaRepository.search", condition, result.size());
+                return result;
+            }
+        }
+
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -122,28 +183,104 @@ public class MemberJpaRepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                );
+
+        return metrics.content("MemberJpaRepository.search", condition, query::fetch);
     }
 
-    //where 파라미터 방식은 이런식으로 재사용이 가능하다.
-    public List<Member> findMember(MemberSearchCondition condition) {
-        return queryFactory
-                .selectFrom(member)
+    /**
+     * 스트리밍 조회 - 결과를 List 로 모으지 않고 한 행씩 consumer 에 넘긴다.
+     *   - 하이버네이트 ScrollableResults(FORWARD_ONLY) 로 커서를 앞으로만 읽는다. (Querydsl iterate())
+     *   - fetchSize 만큼씩 DB 에서 가져오므로 결과가 몇 건이든 메모리 사용량이 일정하다.
+     *   - 커서는 트랜잭션(커넥션) 안에서만 유효하므로 읽기 전용 트랜잭션 안에서 끝까지 소비한다.
+     *   - member_id 순서로 내보낸다. (PK 인덱스 순서라 정렬 비용이 없고, 끊긴 곳부터 다시 받을 수 있다)
+     *
+     * 행이 많으므로 DTO 변환은 리플렉션 없는 FastProjections 를 사용한다.
+     *
+     * 참고: MySQL 드라이버는 fetchSize 를 Integer.MIN_VALUE 로 주어야 실제로 스트리밍 된다.
+     */
+    @Transactional(readOnly = true)
+    public long streamSearch(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(FastProjections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
+                .where(
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+                        ageLoe(condition.getAgeLoe())
+                )
+                .orderBy(member.id.asc())
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true);
+
+        // consumer 가 쓰는 시간(응답 쓰기)까지 포함된다.
+        long count = metrics.time("MemberJpaRepository.streamSearch", MemberSearchShape.of(condition), MemberQueryMetrics.CONTENT, () -> {
+            long rows = 0;
+            try (CloseableIterator<MemberTeamDto> iterator = query.iterate()) {
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    rows++;
+                }
+            }
+            return rows;
+        });
+        metrics.recordRows("MemberJpaRepository.streamSearch", condition, count);
+        return count;
+    }
+
+    //where 파라미터 방식은 이런식으로 재사용이 가능하다.
+    //회원 엔티티만 조회하므로 팀 조건이 있을 때만 조인한다.
+    public List<Member> findMember(MemberSearchCondition condition) {
+        JPAQuery<Member> query = queryFactory.selectFrom(member);
+        joinTeamIfNeeded(query, condition);
+
+        query.where(usernameEq(condition),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+
+        return metrics.content("MemberJpaRepository.findMember", condition, query::fetch);
+    }
+
+    /**
+     * search(), searchByBuilder() 의 전체 카운트
+     *   - member -> team 은 다대일이라 조인이 행 수를 바꾸지 않는다. 팀 조건이 없으면 조인을 뺀다.
+     *   - 엔티티가 아니라 id 를 카운트한다.
+     */
+    public long searchCount(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.id.count())
+                .from(member);
+        joinTeamIfNeeded(query, condition);
+
+        query.where(usernameEq(condition),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe()));
+
+        metrics.recordShape(condition);
+        return metrics.count("MemberJpaRepository.searchCount", condition, query::fetchOne);
+    }
+
+    private void joinTeamIfNeeded(JPAQuery<?> query, MemberSearchCondition condition) {
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    private BooleanExpression usernameEq(MemberSearchCondition condition) {
+        return usernameSearch.predicate(condition);
     }
 
     private BooleanExpression teamNameEq(String teamName) {
@@ -0,0 +1,97 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 회원 검색 쿼리 지연시간, 결과 행 수 기록
+ *   - member.query: 쿼리 실행시간 히스토그램 (method, shape, phase 태그)
+ *   - member.query.rows: 조회한 행 수 (method, shape 태그)
+ *
+ * method 는 "저장소.메서드" 형식이다. (예: MemberRepository.search, MemberJpaRepository.search)
+ * 미리 만든 JPQL 템플릿으로 실행하면 .template 을 붙여서 Querydsl 로 만든 쿼리와 구분한다. (MemberSearchQueryCache)
+ * shape 는 어떤 검색조건이 들어왔는지 (MemberSearchShape, 예: teamName+ageGoe) 이다. 값은 태그로 쓰지 않으므로 태그 조합은 유한하다.
+ * phase 는 content(내용 쿼리), count(카운트 쿼리), snapshot(DB 없이 메모리 스냅샷에서 조회, MemberSnapshot) 중 하나다.
+ *
+ * 실행한 모양은 QueryShapeRecorder 에도 기록한다. (IndexAdvisor 분석 대상)
+ * 검색 호출 한 번에 한 번만 기록한다. 페이징 조회처럼 내용, 카운트 쿼리를 같이 실행해도 1회이다.
+ *   - content(), recordRows(): 호출마다 결과 행 수를 한 번 기록하므로 모양도 같이 기록한다.
+ *   - count(), time(): 기록하지 않는다. 카운트만 실행하는 메서드는 recordShape() 를 직접 호출한다.
+ *
+ * 퍼센타일 히스토그램을 같이 내보내므로 /actuator/prometheus 에서 여러 인스턴스를 합쳐서 p99 를 계산할 수 있다.
+ */
+@Component
+public class MemberQueryMetrics {
+
+    public static final String CONTENT = "content";
+    public static final String COUNT = "count";
+    public static final String SNAPSHOT = "snapshot";
+
+    private final MeterRegistry meterRegistry;
+    private final QueryShapeRecorder shapeRecorder;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rows = new ConcurrentHashMap<>();
+
+    public MemberQueryMetrics(MeterRegistry meterRegistry, QueryShapeRecorder shapeRecorder) {
+        this.meterRegistry = meterRegistry;
+        this.shapeRecorder = shapeRecorder;
+    }
+
+    /**
+     * 내용 쿼리 실행시간과 결과 행 수를 기록한다.
+     */
+    public <T> List<T> content(String method, MemberSearchCondition condition, Supplier<List<T>> query) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        List<T> result = time(method, shape, CONTENT, query);
+        shapeRecorder.record(shape);
+        rows(method, shape).record(result.size());
+        return result;
+    }
+
+    /**
+     * 카운트 쿼리 실행시간을 기록한다.
+     */
+    public long count(String method, MemberSearchCondition condition, Supplier<Long> query) {
+        return time(method, MemberSearchShape.of(condition), COUNT, query);
+    }
+
+    public <T> T time(String method, MemberSearchShape shape, String phase, Supplier<T> query) {
+        return timer(method, shape, phase).record(query);
+    }
+
+    public void recordRows(String method, MemberSearchCondition condition, long count) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        shapeRecorder.record(shape);
+        rows(method, shape).record(count);
+    }
+
+    public void recordShape(MemberSearchCondition condition) {
+        shapeRecorder.record(MemberSearchShape.of(condition));
+    }
+
+    private Timer timer(String method, MemberSearchShape shape, String phase) {
+        return timers.computeIfAbsent(method + '|' + shape + '|' + phase, key -> Timer.builder("member.query")
+                .tag("method", method)
+                .tag("shape", shape.toString())
+                .tag("phase", phase)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary rows(String method, MemberSearchShape shape) {
+        return rows.computeIfAbsent(method + '|' + shape, key -> DistributionSummary.builder("member.query.rows")
+                .tag("method", method)
+                .tag("shape", shape.toString())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -1,5 +1,7 @@
 package com.jrock.querydsl.repository;
 
+import com.jrock.querydsl.dto.CursorPage;
+import com.jrock.querydsl.dto.MemberCursor;
 import com.jrock.querydsl.dto.MemberSearchCondition;
 import com.jrock.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
@@ -12,5 +14,6 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
 
 }
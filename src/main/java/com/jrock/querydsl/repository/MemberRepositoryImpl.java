@@ -1,10 +1,13 @@
 package com.jrock.querydsl.repository;
 
+import com.jrock.querydsl.dto.CursorPage;
+import com.jrock.querydsl.dto.MemberCursor;
 import com.jrock.querydsl.dto.MemberSearchCondition;
 import com.jrock.querydsl.dto.MemberTeamDto;
 import com.jrock.querydsl.dto.QMemberTeamDto;
-import com.jrock.querydsl.entity.Member;
-import com.querydsl.core.QueryResults;
+import com.jrock.querydsl.search.MemberBitmapIndex;
+import com.jrock.querydsl.search.MemberSnapshot;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -12,28 +15,67 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static com.jrock.querydsl.entity.QMember.member;
 import static com.jrock.querydsl.entity.QTeam.team;
 
+/**
+ * 검색만 하므로 읽기 전용 트랜잭션으로 실행한다. (replica.enabled=true 이면 복제본에서 조회)
+ */
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberCountCache countCache;
+    private final MemberSearchQueryCache queryTemplates;
+    private final MemberQueryMetrics metrics;
+    private final ParallelCountExecutor parallelCount;
+    private final MemberUsernameSearch usernameSearch;
+    private final MemberSnapshot snapshot;
+    private final MemberBitmapIndex bitmapIndex;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache, MemberSearchQueryCache queryTemplates,
+                                MemberQueryMetrics metrics, ParallelCountExecutor parallelCount,
+                                MemberUsernameSearch usernameSearch, MemberSnapshot snapshot,
+                                MemberBitmapIndex bitmapIndex) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.countCache = countCache;
+        this.queryTemplates = queryTemplates;
+        this.metrics = metrics;
+        this.parallelCount = parallelCount;
+        this.usernameSearch = usernameSearch;
+        this.snapshot = snapshot;
+        this.bitmapIndex = bitmapIndex;
     }
 
     /**
      * 동적 쿼리와 성능 최적화 조회 - Where절 파라미터 사용 (권장)
+     * 검색조건 모양별로 미리 만들어 둔 쿼리 템플릿이 있으면 그것을 사용한다. (MemberSearchQueryCache)
+     * member.snapshot.enabled=true 이고 스냅샷이 최신이면 DB 를 조회하지 않는다. (MemberSnapshot, 커밋된 데이터만 보인다)
      */
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        if (snapshot.isReady()) {
+            List<MemberTeamDto> result = metrics.time("MemberRepository.search", MemberSearchShape.of(condition),
+                    MemberQueryMetrics.SNAPSHOT, () -> snapshot.search(condition));
+            if (result != null) {
+                metrics.recordRows("MemberRepository.search", condition, result.size());
+                return result;
+            }
+        }
+
+        if (queryTemplates.supports(condition)) {
+            return metrics.content("MemberRepository.search.template", condition, () -> queryTemplates.search(condition));
+        }
+
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -43,21 +85,23 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                );
+
+        return metrics.content("MemberRepository.search", condition, query::fetch);
     }
 
     /**
-     * Querydsl이 제공하는 fetchResults() 를 사용하면 내용과 전체 카운트를 한번에 조회할 수 있다.(실제 쿼리는 2번 호출)
-     * fetchResult() 는 카운트 쿼리 실행시 필요없는 order by 는 제거한다.
+     * 내용 쿼리와 카운트 쿼리를 차례로 한 번씩 실행한다. (카운트 생략, 캐시 없음)
+     * fetchResults() 는 내용 쿼리의 left join 을 그대로 둔 카운트 쿼리를 만들므로 사용하지 않고,
+     * searchPageComplex 와 같이 사용하는 조건만으로 만든 카운트 쿼리(countQuery)를 실행한다.
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -67,17 +111,16 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .offset(pageable.getOffset()) // 몇 번째를 스킵하고 몇번째 부터 시작할꺼야
-                .limit(pageable.getPageSize()) // 한번 조회 할 때 몇개까지 조회할꺼야
-                .fetchResults();
+                .limit(pageable.getPageSize()); // 한번 조회 할 때 몇개까지 조회할꺼야
 
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal();
+        List<MemberTeamDto> content = metrics.content("MemberRepository.searchPageSimple", condition, query::fetch);
+        long total = metrics.count("MemberRepository.searchPageSimple", condition, () -> countQuery(condition).fetchOne());
 
         return new PageImpl<>(content, pageable, total); //spring data 구현체
     }
@@ -89,7 +132,14 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        if (queryTemplates.supports(condition)) {
+            return getPage(condition, pageable,
+                    () -> metrics.content("MemberRepository.searchPageComplex.template", condition,
+                            () -> queryTemplates.search(condition, pageable.getOffset(), pageable.getPageSize())),
+                    () -> metrics.count("MemberRepository.searchPageComplex.template", condition, () -> queryTemplates.count(condition)));
+        }
+
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
@@ -99,21 +149,20 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
                 .offset(pageable.getOffset()) // 몇 번째를 스킵하고 몇번째 부터 시작할꺼야
-                .limit(pageable.getPageSize()) // 한번 조회 할 때 몇개까지 조회할꺼야
-                .fetch();
+                .limit(pageable.getPageSize()); // 한번 조회 할 때 몇개까지 조회할꺼야
 
 //        long total = queryFactory
 //                .select(member)
 //                .from(member)
 //                .leftJoin(member.team, team)
 //                .where(
-//                        usernameEq(condition.getUsername()),
+//                        usernameEq(condition),
 //                        teamNameEq(condition.getTeamName()),
 //                        ageGoe(condition.getAgeGoe()),
 //                        ageLoe(condition.getAgeLoe())
@@ -125,25 +174,134 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
          * count 쿼리가 생략 가능한 경우 생략해서 처리
          * 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
          * 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+         *
+         * 카운트가 필요한 경우에도 같은 검색조건의 카운트는 MemberCountCache 에서 재사용한다.
+         * 카운트 쿼리 시간은 캐시에 없어서 실제로 실행한 경우만 기록된다.
          */
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
+        // 카운트 쿼리는 실행할 때 만든다. 캐시 갱신(stale), 병렬 카운트는 다른 쓰레드의 트랜잭션에서 실행된다.
+        // return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+        return getPage(condition, pageable,
+                () -> metrics.content("MemberRepository.searchPageComplex", condition, contentQuery::fetch),
+                () -> metrics.count("MemberRepository.searchPageComplex", condition, () -> countQuery(condition).fetchOne()));
+//        return new PageImpl<>(content, pageable, total); //spring data 구현체
+    }
+
+    /**
+     * member.search.parallel-count.enabled 이면 카운트 쿼리를 내용 쿼리와 동시에 실행한다. (ParallelCountExecutor)
+     * 캐시에 신선한 카운트가 있으면 카운트 쿼리가 필요 없으므로 순서대로 실행한다.
+     *
+     * 회원명 조건이 없으면 카운트는 비트맵 색인에서 계산한다. (MemberBitmapIndex, 색인이 준비되지 않았으면 캐시/DB)
+     *   - 메모리 계산이라 카운트 캐시와 병렬 카운트를 거치지 않는다.
+     *   - 색인은 커밋 이벤트로 갱신되므로 내용 쿼리(DB, 복제본)와 시점이 다를 수 있다. (카운트 캐시의 stale 과 같은 근사값)
+     *     이미 조회한 행 수보다 작으면 페이지가 맞지 않으므로 offset + 내용 수 이상으로 맞춘다.
+     */
+    private Page<MemberTeamDto> getPage(MemberSearchCondition condition, Pageable pageable,
+                                        Supplier<List<MemberTeamDto>> contentQuery, LongSupplier countQuery) {
+        LongSupplier cachedCount = () -> countCache.get(condition, countQuery);
+
+        if (bitmapIndex.supports(condition)) {
+            List<MemberTeamDto> content = contentQuery.get();
+            LongSupplier indexedCount = () -> {
+                Long count = bitmapIndex.count(condition);
+                if (count == null) {
+                    return cachedCount.getAsLong();
+                }
+                return Math.max(count, pageable.getOffset() + content.size());
+            };
+            return PageableExecutionUtils.getPage(content, pageable, indexedCount);
+        }
+        if (!parallelCount.isEnabled() || countCache.getIfFresh(condition) != null) {
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, cachedCount);
+        }
+        return parallelCount.getPage(contentQuery, pageable, cachedCount);
+    }
+
+    /**
+     * 카운트 쿼리는 실제로 사용하는 검색조건만으로 만든다.
+     *   - member -> team 은 다대일이라 left join 을 해도 행 수가 바뀌지 않는다. 팀 조건이 없으면 조인 자체를 뺀다.
+     *   - 팀 조건이 있으면 team.name = ? 에서 팀이 없는 회원은 어차피 걸러지므로 내부 조인으로 충분하다.
+     *   - 엔티티가 아니라 id 를 카운트한다.
+     */
+    private JPAQuery<Long> countQuery(MemberSearchCondition condition) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.id.count())
+                .from(member);
+
+        if (StringUtils.hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        }
+
+        return query.where(
+                usernameEq(condition),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    /**
+     * 키셋(seek) 페이징
+     *   - offset 은 앞의 행을 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+     *   - 마지막으로 조회한 (정렬 키, member_id) 보다 큰 행부터 조회하면 어느 페이지든 비용이 같다.
+     *   - 다음 페이지 존재 여부는 size + 1 개를 조회해서 판단한다. (카운트 쿼리 없음)
+     */
+    @Override
+    public CursorPage<MemberTeamDto> searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        JPAQuery<MemberTeamDto> query = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
+                        usernameEq(condition),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                        ageLoe(condition.getAgeLoe()),
+                        cursorAfter(cursor)
+                )
+                .orderBy(cursorOrder(cursor))
+                .limit(size + 1);
 
-        // return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-//        return new PageImpl<>(content, pageable, total); //spring data 구현체
+        List<MemberTeamDto> content = metrics.content("MemberRepository.searchByCursor", condition, query::fetch);
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+
+        String nextCursor = hasNext
+                ? MemberCursor.after(cursor.getSortKey(), content.get(content.size() - 1)).encode()
+                : null;
+
+        return new CursorPage<>(content, size, hasNext, nextCursor);
+    }
+
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+
+        if (cursor.getSortKey() == MemberCursor.SortKey.AGE) {
+            // (age, member_id) > (:lastAge, :lastMemberId)
+            return member.age.gt(cursor.getLastAge())
+                    .or(member.age.eq(cursor.getLastAge()).and(member.id.gt(cursor.getLastMemberId())));
+        }
+        return member.id.gt(cursor.getLastMemberId());
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+        if (cursor.getSortKey() == MemberCursor.SortKey.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    private BooleanExpression usernameEq(MemberSearchCondition condition) {
+        return usernameSearch.predicate(condition);
     }
 
     private BooleanExpression teamNameEq(String teamName) {
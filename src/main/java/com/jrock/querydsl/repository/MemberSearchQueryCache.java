@@ -0,0 +1,214 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.projection.FastProjections;
+import com.querydsl.core.types.FactoryExpression;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static com.jrock.querydsl.entity.QMember.member;
+import static com.jrock.querydsl.entity.QTeam.team;
+
+/**
+ * 검색 쿼리 템플릿 캐시
+ *
+ * Querydsl 동적 쿼리는 호출마다 표현식 트리를 만들고 JPQL 문자열로 다시 직렬화한다.
+ * 검색조건의 모양은 정해져 있으므로(MemberSearchShape), 모양별 JPQL 을 시작할 때 한 번만 만들어 두고
+ * 요청마다 바인딩 파라미터만 바꿔서 실행한다.
+ *   - 애플리케이션 시작시 모든 템플릿을 createQuery 해서 하이버네이트 쿼리 플랜 캐시(HQL 파싱 결과)를 미리 채운다.
+ *   - 같은 JPQL 문자열이므로 이후에는 하이버네이트가 HQL 을 다시 파싱하지 않는다.
+ *   - 카운트 템플릿은 팀 조건이 있을 때만 조인한다. (MemberRepositoryImpl.countQuery() 와 같은 규칙)
+ *   - 팀 조건이 있으면 내용 템플릿도 내부 조인한다. t.name = ? 조건이 팀 없는 회원을 어차피 거르므로 결과는 같고,
+ *     외부 조인은 DB 가 조인 순서를 바꿀 수 없어서 team(name) 인덱스로 팀을 먼저 찾지 못한다. (IndexAdvisor)
+ *   - 회원명 조건은 MemberUsernameSearch 의 LIKE 조건과 같은 모양이다. (LIKE ... escape '!', 대소문자 무시는 lower())
+ *
+ * 같은 쿼리를 Querydsl 로 만드는 방법은 MemberJpaRepository.search() 를 참고.
+ */
+@Slf4j
+@Component
+public class MemberSearchQueryCache {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final boolean enabled;
+    private final String[] contentQueries = new String[MemberSearchShape.INDEX_COUNT];
+    private final String[] countQueries = new String[MemberSearchShape.INDEX_COUNT];
+    private final FactoryExpression<MemberTeamDto> projection = FastProjections.constructor(MemberTeamDto.class,
+            member.id, member.username, member.age, team.id, team.name);
+
+    public MemberSearchQueryCache(EntityManager em, EntityManagerFactory emf,
+                                  @Value("${member.query-template.enabled:true}") boolean enabled) {
+        this.em = em;
+        this.emf = emf;
+        this.enabled = enabled;
+
+        for (MemberSearchShape shape : MemberSearchShape.values()) {
+            String where = where(shape);
+            contentQueries[shape.index()] = "select m.id, m.username, m.age, t.id, t.name"
+                    + " from Member m" + (shape.hasTeamName() ? " join m.team t" : " left join m.team t") + where;
+            countQueries[shape.index()] = "select count(m.id) from Member m"
+                    + (shape.hasTeamName() ? " join m.team t" : "") + where;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 검색은 회원명 완전 일치(대소문자 구분)만 템플릿으로 실행한다. 나머지 회원명 검색은 MemberUsernameSearch 를 사용하는 Querydsl 로 조회한다.
+     * (나머지 모양의 템플릿은 IndexAdvisor 가 실행계획을 볼 때 사용한다)
+     */
+    public boolean supports(MemberSearchCondition condition) {
+        return enabled && (!StringUtils.hasText(condition.getUsername()) || condition.isExactUsername());
+    }
+
+    /**
+     * 모든 모양의 템플릿을 한 번씩 파싱해서 하이버네이트 쿼리 플랜 캐시에 올려 둔다.
+     * 트랜잭션 밖에서 실행되므로 공유 EntityManager 대신 직접 만든 EntityManager 를 쓰고 닫는다.
+     * (쿼리 플랜 캐시는 EntityManagerFactory 단위이므로 결과는 같다)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        EntityManager warmUpEm = emf.createEntityManager();
+        try {
+            for (MemberSearchShape shape : MemberSearchShape.values()) {
+                if (shape.isExactUsername()) {
+                    warmUpEm.createQuery(contentQueries[shape.index()], Object[].class);
+                    warmUpEm.createQuery(countQueries[shape.index()], Long.class);
+                }
+            }
+        } finally {
+            warmUpEm.close();
+        }
+        log.info("member search query templates warmed up. shapes={}", MemberSearchShape.COUNT);
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return search(condition, -1, -1);
+    }
+
+    /**
+     * offset, limit 이 음수이면 페이징하지 않는다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, long offset, int limit) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        TypedQuery<Object[]> query = em.createQuery(contentQueries[shape.index()], Object[].class);
+        bind(query, shape, condition);
+
+        if (offset >= 0) {
+            query.setFirstResult(Math.toIntExact(offset));
+        }
+        if (limit >= 0) {
+            query.setMaxResults(limit);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(projection.newInstance(row));
+        }
+        return result;
+    }
+
+    public long count(MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        TypedQuery<Long> query = em.createQuery(countQueries[shape.index()], Long.class);
+        bind(query, shape, condition);
+        return query.getSingleResult();
+    }
+
+    public String contentQuery(MemberSearchShape shape) {
+        return contentQueries[shape.index()];
+    }
+
+    public String countQuery(MemberSearchShape shape) {
+        return countQueries[shape.index()];
+    }
+
+    private static String where(MemberSearchShape shape) {
+        List<String> predicates = new ArrayList<>();
+        if (shape.hasUsername()) {
+            predicates.add(usernamePredicate(shape));
+        }
+        if (shape.hasTeamName()) {
+            predicates.add("t.name = :teamName");
+        }
+        if (shape.hasAgeGoe()) {
+            predicates.add("m.age >= :ageGoe");
+        }
+        if (shape.hasAgeLoe()) {
+            predicates.add("m.age <= :ageLoe");
+        }
+        return predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+    }
+
+    private static void bind(TypedQuery<?> query, MemberSearchShape shape, MemberSearchCondition condition) {
+        if (shape.hasUsername()) {
+            query.setParameter("username", usernameParameter(shape, condition.getUsername()));
+        }
+        if (shape.hasTeamName()) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if (shape.hasAgeGoe()) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (shape.hasAgeLoe()) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+    }
+
+    /**
+     * 템플릿의 :username 에 바인딩할 값 (LIKE 패턴이면 %, _, ! 를 escape 하고 대소문자 무시는 소문자로 바꾼다)
+     */
+    public static String usernameParameter(MemberSearchShape shape, String username) {
+        if (shape.isExactUsername()) {
+            return username;
+        }
+        String value = shape.isUsernameIgnoreCase() ? username.toLowerCase(Locale.ROOT) : username;
+        switch (shape.getUsernameMatch()) {
+            case PREFIX:
+                return escapeLike(value) + "%";
+            case CONTAINS:
+                return "%" + escapeLike(value) + "%";
+            default:
+                return value;
+        }
+    }
+
+    private static String usernamePredicate(MemberSearchShape shape) {
+        String column = shape.isUsernameIgnoreCase() ? "lower(m.username)" : "m.username";
+        if (shape.getUsernameMatch() == UsernameMatch.EXACT) {
+            return column + " = :username";
+        }
+        return column + " like :username escape '!'";
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == '!') {
+                escaped.append('!');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
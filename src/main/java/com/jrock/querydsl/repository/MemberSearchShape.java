@@ -0,0 +1,205 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.UsernameMatch;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 검색조건의 모양(shape) - 어떤 조건이 들어왔는지만 본다. (값은 보지 않는다)
+ *   - MemberSearchCondition 의 조건 4개(username, teamName, ageGoe, ageLoe)가 있고 없고의 조합(mask)은 16가지 뿐이다.
+ *   - 회원명 조건은 검색 방식(EXACT, PREFIX, CONTAINS)과 대소문자 무시 여부까지 모양에 포함한다. (6가지)
+ *     username = ? 와 lower(username) like '%x%' 는 실행계획이 전혀 다르기 때문이다.
+ *   - 같은 모양이면 JPQL 이 같고 바인딩 값만 다르다.
+ *
+ * 이름 예) teamName+ageGoe, usernameContainsIgnoreCase+ageGoe, none
+ */
+public final class MemberSearchShape {
+
+    /**
+     * 조건 조합(mask) 수
+     */
+    public static final int COUNT = 16;
+
+    /**
+     * 회원명 검색 방식까지 포함한 모양 수 (index() 범위)
+     */
+    public static final int INDEX_COUNT = COUNT * UsernameMatch.values().length * 2;
+
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[INDEX_COUNT];
+    private static final List<MemberSearchShape> VALUES;
+
+    static {
+        List<MemberSearchShape> values = new ArrayList<>();
+        for (int mask = 0; mask < COUNT; mask++) {
+            if ((mask & USERNAME) == 0) {
+                values.add(create(mask, UsernameMatch.EXACT, false));
+                continue;
+            }
+            for (UsernameMatch match : UsernameMatch.values()) {
+                values.add(create(mask, match, false));
+                values.add(create(mask, match, true));
+            }
+        }
+        VALUES = Collections.unmodifiableList(values);
+    }
+
+    private final int mask;
+    private final UsernameMatch usernameMatch;
+    private final boolean usernameIgnoreCase;
+    private final String name;
+
+    private MemberSearchShape(int mask, UsernameMatch usernameMatch, boolean usernameIgnoreCase) {
+        this.mask = mask;
+        this.usernameMatch = usernameMatch;
+        this.usernameIgnoreCase = usernameIgnoreCase;
+
+        StringJoiner joiner = new StringJoiner("+");
+        if ((mask & USERNAME) != 0) {
+            joiner.add(usernameName(usernameMatch, usernameIgnoreCase));
+        }
+        if ((mask & TEAM_NAME) != 0) {
+            joiner.add("teamName");
+        }
+        if ((mask & AGE_GOE) != 0) {
+            joiner.add("ageGoe");
+        }
+        if ((mask & AGE_LOE) != 0) {
+            joiner.add("ageLoe");
+        }
+        this.name = mask == 0 ? "none" : joiner.toString();
+    }
+
+    private static MemberSearchShape create(int mask, UsernameMatch match, boolean ignoreCase) {
+        MemberSearchShape shape = new MemberSearchShape(mask, match, ignoreCase);
+        SHAPES[shape.index()] = shape;
+        return shape;
+    }
+
+    private static String usernameName(UsernameMatch match, boolean ignoreCase) {
+        String name = "username";
+        if (match == UsernameMatch.PREFIX) {
+            name += "Prefix";
+        } else if (match == UsernameMatch.CONTAINS) {
+            name += "Contains";
+        }
+        return ignoreCase ? name + "IgnoreCase" : name;
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int mask = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            mask |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            mask |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            mask |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            mask |= AGE_LOE;
+        }
+        if ((mask & USERNAME) == 0) {
+            return of(mask);
+        }
+        UsernameMatch match = condition.getUsernameMatch() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT;
+        return of(mask, match, condition.isUsernameIgnoreCase());
+    }
+
+    /**
+     * 회원명 조건은 대소문자를 구분하는 완전 일치
+     */
+    public static MemberSearchShape of(int mask) {
+        return of(mask, UsernameMatch.EXACT, false);
+    }
+
+    public static MemberSearchShape of(int mask, UsernameMatch usernameMatch, boolean usernameIgnoreCase) {
+        if ((mask & USERNAME) == 0) {
+            return SHAPES[mask];
+        }
+        return SHAPES[index(mask, usernameMatch, usernameIgnoreCase)];
+    }
+
+    /**
+     * 모든 모양 (회원명 검색 방식 포함)
+     */
+    public static List<MemberSearchShape> values() {
+        return VALUES;
+    }
+
+    /**
+     * toString() 형식(예: teamName+ageGoe, usernameContains+ageGoe, none)의 이름으로 찾는다.
+     */
+    public static MemberSearchShape parse(String name) {
+        for (MemberSearchShape shape : VALUES) {
+            if (shape.name.equals(name)) {
+                return shape;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 검색조건 모양 입니다. shape=" + name);
+    }
+
+    private static int index(int mask, UsernameMatch match, boolean ignoreCase) {
+        return mask + COUNT * (match.ordinal() * 2 + (ignoreCase ? 1 : 0));
+    }
+
+    /**
+     * 어떤 조건이 있는지 (0 ~ COUNT - 1). 회원명 검색 방식은 구분하지 않는다.
+     */
+    public int mask() {
+        return mask;
+    }
+
+    /**
+     * 모양마다 다른 번호 (0 ~ INDEX_COUNT - 1). 배열 칸으로 사용한다.
+     */
+    public int index() {
+        return index(mask, usernameMatch, usernameIgnoreCase);
+    }
+
+    public boolean hasUsername() {
+        return (mask & USERNAME) != 0;
+    }
+
+    public boolean hasTeamName() {
+        return (mask & TEAM_NAME) != 0;
+    }
+
+    public boolean hasAgeGoe() {
+        return (mask & AGE_GOE) != 0;
+    }
+
+    public boolean hasAgeLoe() {
+        return (mask & AGE_LOE) != 0;
+    }
+
+    public UsernameMatch getUsernameMatch() {
+        return usernameMatch;
+    }
+
+    public boolean isUsernameIgnoreCase() {
+        return usernameIgnoreCase;
+    }
+
+    /**
+     * 회원명 조건이 없거나 대소문자를 구분하는 완전 일치 (username = ?)
+     */
+    public boolean isExactUsername() {
+        return !hasUsername() || (usernameMatch == UsernameMatch.EXACT && !usernameIgnoreCase);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
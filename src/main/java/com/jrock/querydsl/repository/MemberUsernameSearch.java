@@ -0,0 +1,87 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.search.UsernameTrigramIndex;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringPath;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jrock.querydsl.entity.QMember.member;
+
+/**
+ * 회원명 검색조건 (EXACT, PREFIX, CONTAINS, 대소문자 무시)
+ *   - 대소문자를 구분하는 완전 일치는 username = ? (idx_member_username)
+ *   - 나머지는 LIKE, lower() 로 조회한다.
+ *   - member.username-index.enabled=true 이면 trigram 색인으로 후보 회원 id 를 먼저 찾아서 member_id in (...) and LIKE 로 조회한다.
+ *     색인은 커밋 이벤트로 갱신되므로 방금 커밋되거나 이름이 바뀐 회원, 같은 트랜잭션에서 변경한 회원이 결과에서 빠질 수 있다. (근사 결과)
+ *     그래서 기본값은 꺼져 있다.
+ *     (in 절 파라미터 수는 hibernate.query.in_clause_parameter_padding 으로 2의 거듭제곱에 맞춰서 쿼리 플랜을 재사용한다)
+ *   - 색인을 켜도 사용할 수 없으면(준비 전, 검색어가 3글자 미만, 결과가 너무 많음) LIKE, lower() 로 조회한다.
+ */
+@Component
+public class MemberUsernameSearch {
+
+    private final UsernameTrigramIndex index;
+
+    public MemberUsernameSearch(UsernameTrigramIndex index) {
+        this.index = index;
+    }
+
+    public BooleanExpression predicate(MemberSearchCondition condition) {
+        BooleanExpression like = likePredicate(condition);
+        if (like == null || condition.isExactUsername()) {
+            return like;
+        }
+
+        UsernameMatch match = condition.getUsernameMatch() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT;
+        long[] ids = index.search(condition.getUsername(), match, condition.isUsernameIgnoreCase());
+        if (ids != null) {
+            return idIn(ids).and(like);
+        }
+        return like;
+    }
+
+    /**
+     * 색인을 사용하지 않는 조건 (username = ?, LIKE, lower())
+     * 벌크 수정, 삭제는 늦게 반영된 색인 때문에 대상 회원이 빠지면 안 되므로 이 조건을 사용한다.
+     */
+    public BooleanExpression likePredicate(MemberSearchCondition condition) {
+        String username = condition.getUsername();
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        if (condition.isExactUsername()) {
+            return member.username.eq(username);
+        }
+
+        UsernameMatch match = condition.getUsernameMatch() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT;
+        return like(member.username, username, match, condition.isUsernameIgnoreCase());
+    }
+
+    private static BooleanExpression idIn(long[] ids) {
+        if (ids.length == 0) {
+            return member.id.isNull(); // member_id 는 null 일 수 없으므로 결과 없음
+        }
+        List<Long> values = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            values.add(id);
+        }
+        return member.id.in(values);
+    }
+
+    private static BooleanExpression like(StringPath path, String username, UsernameMatch match, boolean ignoreCase) {
+        switch (match) {
+            case PREFIX:
+                return ignoreCase ? path.startsWithIgnoreCase(username) : path.startsWith(username);
+            case CONTAINS:
+                return ignoreCase ? path.containsIgnoreCase(username) : path.contains(username);
+            default:
+                return ignoreCase ? path.equalsIgnoreCase(username) : path.eq(username);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.jrock.querydsl.repository;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 조회의 내용 쿼리와 카운트 쿼리를 동시에 실행한다.
+ *   - 카운트 쿼리는 별도 쓰레드의 읽기 전용 트랜잭션(별도 커넥션)에서 실행한다.
+ *   - 동시에 실행하는 카운트는 max-concurrent 개로 제한하고 대기열을 두지 않는다.
+ *     빈 쓰레드가 없으면 기다리지 않고 기존처럼 순서대로 실행한다.
+ *     (요청 쓰레드가 커넥션을 잡은 채로 카운트 커넥션을 기다리다 풀이 고갈되지 않도록 max-concurrent 는 커넥션 풀의 절반 이하로 둔다)
+ *   - 내용 쿼리가 끝난 후 PageableExecutionUtils 가 카운트가 필요 없다고 판단하거나 내용 쿼리가 실패하면 카운트를 취소한다.
+ *     JDBC 실행 중인 쓰레드를 인터럽트하지 않고, 실행 중인 SQL 을 Statement.cancel() 로 취소한다. (Session.cancelQuery)
+ *   - 카운트 트랜잭션에는 timeout-seconds 만큼 쿼리 타임아웃을 건다.
+ *
+ * 페이지 응답 시간이 (내용 + 카운트) 에서 max(내용, 카운트) 가 된다. 대신 요청 하나가 커넥션을 2개 사용한다.
+ * 카운트는 다른 트랜잭션에서 실행하므로 호출한 쪽 트랜잭션에서 변경하고 커밋하지 않은 내용은 보이지 않는다.
+ */
+@Component
+public class ParallelCountExecutor {
+
+    private final boolean enabled;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManagerFactory emf;
+
+    @Autowired
+    public ParallelCountExecutor(PlatformTransactionManager transactionManager,
+                                 EntityManagerFactory emf,
+                                 @Value("${member.search.parallel-count.enabled:false}") boolean enabled,
+                                 @Value("${member.search.parallel-count.max-concurrent:4}") int maxConcurrent,
+                                 @Value("${member.search.parallel-count.timeout-seconds:10}") int timeoutSeconds) {
+        this.enabled = enabled;
+        this.emf = emf;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxConcurrent, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread thread = new Thread(r, "parallel-count-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setTimeout(timeoutSeconds);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> Page<T> getPage(Supplier<List<T>> contentQuery, Pageable pageable, LongSupplier countQuery) {
+        CountTask task = new CountTask(countQuery);
+        Future<Long> count;
+        try {
+            count = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+        }
+
+        List<T> content;
+        try {
+            content = contentQuery.get();
+        } catch (RuntimeException | Error e) {
+            task.cancel(count);
+            throw e;
+        }
+
+        AtomicBoolean countUsed = new AtomicBoolean();
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            countUsed.set(true);
+            return join(task, count);
+        });
+
+        if (!countUsed.get()) {
+            task.cancel(count);
+        }
+        return page;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static long join(CountTask task, Future<Long> count) {
+        try {
+            return count.get();
+        } catch (InterruptedException e) {
+            task.cancel(count);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("카운트 쿼리 대기 중 인터럽트 되었습니다.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 카운트 트랜잭션의 하이버네이트 세션을 잡아 두었다가 취소할 때 실행 중인 SQL 을 취소한다.
+     */
+    private final class CountTask implements Callable<Long> {
+
+        private final LongSupplier countQuery;
+        private volatile boolean cancelled;
+        private volatile Session session;
+
+        private CountTask(LongSupplier countQuery) {
+            this.countQuery = countQuery;
+        }
+
+        @Override
+        public Long call() {
+            return readOnlyTransaction.execute(status -> {
+                session = currentSession();
+                try {
+                    if (cancelled) {
+                        throw new CancellationException("카운트 쿼리가 취소되었습니다.");
+                    }
+                    return countQuery.getAsLong();
+                } finally {
+                    session = null;
+                }
+            });
+        }
+
+        private void cancel(Future<Long> count) {
+            cancelled = true;
+            count.cancel(false); // 아직 시작하지 않았으면 실행하지 않는다.
+
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (HibernateException e) {
+                    // 이미 끝난 쿼리는 취소할 것이 없다.
+                }
+            }
+        }
+
+        private Session currentSession() {
+            if (emf == null) {
+                return null;
+            }
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+            return holder != null ? holder.getEntityManager().unwrap(Session.class) : null;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.jrock.querydsl.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 실행된 검색조건 모양(MemberSearchShape)별 실행 횟수 (검색 호출 한 번에 1회, MemberQueryMetrics 가 기록)
+ * 모양 수가 정해져 있으므로(MemberSearchShape.INDEX_COUNT) 배열 칸 하나씩 사용한다.
+ * IndexAdvisor(advisor 패키지)가 읽기만 하므로 repository 패키지에 둔다. (패키지 순환 참조 없음)
+ */
+@Component
+public class QueryShapeRecorder {
+
+    private final AtomicLongArray executions = new AtomicLongArray(MemberSearchShape.INDEX_COUNT);
+
+    public void record(MemberSearchShape shape) {
+        executions.incrementAndGet(shape.index());
+    }
+
+    public long executions(MemberSearchShape shape) {
+        return executions.get(shape.index());
+    }
+
+    /**
+     * 한 번 이상 실행된 모양, 실행 횟수가 많은 순서
+     */
+    public Map<MemberSearchShape, Long> recorded() {
+        Map<MemberSearchShape, Long> recorded = new LinkedHashMap<>();
+        for (MemberSearchShape shape : MemberSearchShape.values()) {
+            long count = executions.get(shape.index());
+            if (count > 0) {
+                recorded.put(shape, count);
+            }
+        }
+
+        Map<MemberSearchShape, Long> sorted = new LinkedHashMap<>();
+        recorded.entrySet().stream()
+                .sorted(Map.Entry.<MemberSearchShape, Long>comparingByValue().reversed())
+                .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+}
@@ -0,0 +1,19 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.entity.Team;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    /**
+     * 팀 이름 -> 팀 조회는 쿼리 캐시를 사용한다.
+     * 쿼리 캐시에는 결과 id 만 저장되고, 엔티티는 Team 2차 캐시에서 가져온다.
+     * team 테이블이 변경되면 하이버네이트가 자동으로 무효화한다. (update timestamps)
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    Optional<Team> findFirstByNameOrderByIdAsc(String name);
+}
@@ -0,0 +1,205 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.event.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * 변경 이벤트로 갱신하는 메모리 색인 (MemberSnapshot, MemberBitmapIndex, UsernameTrigramIndex)
+ *
+ * 색인 상태(S)는 load() 로 DB 에서 전체를 읽어서 만들고, 이후에는 변경 이벤트(EntityChangeEvent, 커밋 이후)를 apply() 로 반영한다.
+ *   - 시작할 때(ApplicationReadyEvent) 별도 쓰레드에서 만든다. 만드는 동안은 사용할 수 없다. (read() 가 null 반환, 호출한 쪽이 DB 로 조회)
+ *   - 벌크 변경 이벤트는 어떤 행이 바뀌었는지 알 수 없으므로 다시 만든다. 만드는 동안은 사용할 수 없다.
+ *   - 만드는 동안 들어온 이벤트는 모아 두었다가 새 상태로 교체한 후 적용한다.
+ *   - 커밋 이벤트는 커밋한 쓰레드에서 발행되므로 같은 행의 이벤트 순서가 뒤바뀔 수 있다. (이벤트에 버전이 없다)
+ *     refresh-interval-ms 마다 DB 에서 다시 읽어서 교체해 어긋난 부분을 바로잡는다. (0 이면 하지 않음)
+ *     refresh 중에는 기존 상태를 계속 사용하고, 들어온 이벤트도 계속 반영한다.
+ *   - 커밋된 데이터만 보인다. 같은 트랜잭션에서 변경하고 아직 커밋하지 않은 행은 보이지 않는다.
+ *
+ * 읽기는 read lock, 이벤트 반영과 교체는 write lock 안에서 하므로 상태(S) 객체는 따로 동기화하지 않는다.
+ *
+ * @param <S> 색인 상태
+ */
+@Slf4j
+public abstract class EventMaintainedIndex<S> {
+
+    private final String name;
+    private final boolean enabled;
+    private final long refreshIntervalMs;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService builder;
+
+    private S state;
+    private volatile boolean ready;
+    private List<EntityChangeEvent> pending; // 다시 만드는 동안 들어온 이벤트
+
+    /**
+     * @param name 로그, 쓰레드 이름 (예: member-snapshot)
+     */
+    protected EventMaintainedIndex(String name, boolean enabled, long refreshIntervalMs, S empty) {
+        this.name = name;
+        this.enabled = enabled;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.state = empty;
+        this.builder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name + "-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * DB 에서 전체를 읽어서 새 상태를 만든다. (builder 쓰레드, 잠금 밖에서 호출)
+     */
+    protected abstract S load();
+
+    /**
+     * 벌크가 아닌 변경 이벤트 하나를 반영한다. (write lock 안에서 호출)
+     */
+    protected abstract void apply(S state, EntityChangeEvent event);
+
+    /**
+     * 이 색인이 반영할 이벤트인지 (엔티티 종류)
+     */
+    protected abstract boolean handles(EntityChangeEvent event);
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * read lock 안에서 상태를 읽는다.
+     *
+     * @return reader 의 결과. 준비되지 않았으면 null
+     */
+    protected <T> T read(Function<S, T> reader) {
+        if (!isReady()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            return ready ? reader.apply(state) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (enabled) {
+            builder.execute(this::rebuild);
+            if (refreshIntervalMs > 0) {
+                builder.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !handles(event)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(event);
+                if (event.isBulk()) {
+                    ready = false;
+                } else if (ready) {
+                    apply(state, event); // refresh 중에는 기존 상태도 계속 갱신한다.
+                }
+                return;
+            }
+            if (event.isBulk()) {
+                ready = false;
+                pending = new ArrayList<>();
+                builder.execute(this::rebuild);
+                return;
+            }
+            apply(state, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * 전체를 다시 읽어서 새 상태를 만든 후 교체한다. 만드는 동안은 사용할 수 없다.
+     */
+    void rebuild() {
+        rebuild(false);
+    }
+
+    /**
+     * 준비된 상태에서만 다시 만든다. 다시 만드는 동안에도 사용할 수 있다.
+     */
+    void refresh() {
+        if (ready) {
+            rebuild(true);
+        }
+    }
+
+    private void rebuild(boolean refresh) {
+        lock.writeLock().lock();
+        try {
+            if (!refresh) {
+                ready = false;
+            }
+            if (pending == null) {
+                pending = new ArrayList<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        S loaded;
+        try {
+            loaded = load();
+        } catch (RuntimeException e) {
+            log.warn("{} build failed. falls back to database", name, e);
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            state = loaded;
+            List<EntityChangeEvent> events = pending;
+            pending = null;
+            for (EntityChangeEvent event : events) {
+                if (event.isBulk()) {
+                    pending = new ArrayList<>();
+                    builder.execute(this::rebuild);
+                    return;
+                }
+                apply(state, event);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
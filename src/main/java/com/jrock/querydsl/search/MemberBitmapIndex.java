@@ -0,0 +1,316 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 팀별, 나이별 회원 비트맵 색인 (메모리, RoaringBitmap)
+ *
+ * "teamB 이면서 20~40살" 같은 회원명 없는 검색조건의 카운트를 DB 없이 계산한다.
+ *   - 팀 조건: 이름이 같은 팀들의 비트맵을 OR
+ *   - 나이 조건: 범위에 들어가는 나이별 비트맵을 OR (나이 하나가 버킷 하나)
+ *   - 둘 다 있으면 AND 의 카디널리티만 계산한다. (교집합 비트맵을 만들지 않음)
+ *   - 비트맵에는 행 번호를 넣는다. 행은 primitive 배열(long[] ids, int[] ages, long[] teamIds)이고,
+ *     회원 id -> 행 번호는 LongIntHashMap 이다. (변경 이벤트에 이전 값이 없을 수 있으므로 현재 나이, 팀을 행에 기억한다)
+ *   - 회원명 조건이 있으면 사용할 수 없다. (null 반환, 호출한 쪽이 DB 로 카운트)
+ *
+ * Member, Team 변경 이벤트로 갱신한다. 만들고 갱신하는 방식은 EventMaintainedIndex 참고.
+ */
+@Slf4j
+@Component
+public class MemberBitmapIndex extends EventMaintainedIndex<MemberBitmapIndex.Bitmaps> {
+
+    private static final long DELETED = Long.MIN_VALUE;
+    private static final long NO_TEAM = Long.MIN_VALUE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MemberBitmapIndex(JdbcTemplate jdbcTemplate,
+                             @Value("${member.bitmap-index.enabled:false}") boolean enabled,
+                             @Value("${member.bitmap-index.refresh-interval-ms:600000}") long refreshIntervalMs) {
+        super("member-bitmap", enabled, refreshIntervalMs, new Bitmaps());
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 회원명 조건이 없어야 비트맵으로 계산할 수 있다.
+     */
+    public boolean supports(MemberSearchCondition condition) {
+        return isReady() && !StringUtils.hasText(condition.getUsername());
+    }
+
+    /**
+     * @return 검색조건에 맞는 회원 수. 사용할 수 없으면 null
+     */
+    public Long count(MemberSearchCondition condition) {
+        if (!supports(condition)) {
+            return null;
+        }
+        return read(bitmaps -> bitmaps.count(condition));
+    }
+
+    /**
+     * @return 검색조건에 맞는 회원 id (오름차순). 사용할 수 없으면 null
+     */
+    public long[] ids(MemberSearchCondition condition) {
+        if (!supports(condition)) {
+            return null;
+        }
+        return read(bitmaps -> bitmaps.ids(condition));
+    }
+
+    @Override
+    protected Bitmaps load() {
+        Bitmaps loaded = new Bitmaps();
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query("select team_id, name from team",
+                rs -> {
+                    loaded.teamNames.put(rs.getLong(1), rs.getString(2));
+                });
+        jdbcTemplate.query("select member_id, age, team_id from member order by member_id",
+                rs -> {
+                    long teamId = rs.getLong(3);
+                    loaded.append(rs.getLong(1), rs.getInt(2), rs.wasNull() ? NO_TEAM : teamId);
+                });
+        loaded.optimize();
+        log.info("member bitmap index built. members={}, teams={}, ages={}, {}ms",
+                loaded.all.getCardinality(), loaded.byTeam.size(), loaded.byAge.size(),
+                System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    @Override
+    protected void apply(Bitmaps bitmaps, EntityChangeEvent event) {
+        bitmaps.apply(event);
+    }
+
+    @Override
+    protected boolean handles(EntityChangeEvent event) {
+        return event.isFor(Member.class) || event.isFor(Team.class);
+    }
+
+    static class Bitmaps {
+
+        private long[] ids = new long[1024]; // 삭제된 행은 DELETED
+        private int[] ages = new int[1024];
+        private long[] teamIds = new long[1024];
+        private int rows;
+
+        private final LongIntHashMap rowById = new LongIntHashMap();
+        private final RoaringBitmap all = new RoaringBitmap(); // 삭제되지 않은 행
+        private final Map<Long, RoaringBitmap> byTeam = new HashMap<>();
+        private final NavigableMap<Integer, RoaringBitmap> byAge = new TreeMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+
+        long count(MemberSearchCondition condition) {
+            RoaringBitmap teams = StringUtils.hasText(condition.getTeamName()) ? teamBitmap(condition.getTeamName()) : null;
+            RoaringBitmap ages = condition.getAgeGoe() != null || condition.getAgeLoe() != null
+                    ? ageBitmap(condition.getAgeGoe(), condition.getAgeLoe()) : null;
+
+            if (teams != null && ages != null) {
+                return RoaringBitmap.andCardinality(teams, ages);
+            }
+            if (teams != null) {
+                return teams.getLongCardinality();
+            }
+            if (ages != null) {
+                return ages.getLongCardinality();
+            }
+            return all.getLongCardinality();
+        }
+
+        long[] ids(MemberSearchCondition condition) {
+            RoaringBitmap matched = matching(condition);
+            long[] result = new long[matched.getCardinality()];
+            int i = 0;
+            for (int row : matched) {
+                result[i++] = ids[row];
+            }
+            Arrays.sort(result);
+            return result;
+        }
+
+        private RoaringBitmap matching(MemberSearchCondition condition) {
+            RoaringBitmap result = all;
+            if (StringUtils.hasText(condition.getTeamName())) {
+                result = RoaringBitmap.and(result, teamBitmap(condition.getTeamName()));
+            }
+            if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+                result = RoaringBitmap.and(result, ageBitmap(condition.getAgeGoe(), condition.getAgeLoe()));
+            }
+            return result;
+        }
+
+        private RoaringBitmap teamBitmap(String teamName) {
+            List<RoaringBitmap> matched = new ArrayList<>();
+            for (Map.Entry<Long, String> entry : teamNames.entrySet()) {
+                if (teamName.equals(entry.getValue())) {
+                    RoaringBitmap members = byTeam.get(entry.getKey());
+                    if (members != null) {
+                        matched.add(members);
+                    }
+                }
+            }
+            return or(matched);
+        }
+
+        private RoaringBitmap ageBitmap(Integer ageGoe, Integer ageLoe) {
+            int from = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+            int to = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+            if (from > to) {
+                return new RoaringBitmap();
+            }
+            return or(byAge.subMap(from, true, to, true).values());
+        }
+
+        private static RoaringBitmap or(Collection<RoaringBitmap> bitmaps) {
+            if (bitmaps.isEmpty()) {
+                return new RoaringBitmap();
+            }
+            if (bitmaps.size() == 1) {
+                return bitmaps.iterator().next();
+            }
+            return FastAggregation.or(bitmaps.iterator());
+        }
+
+        void apply(EntityChangeEvent event) {
+            long id = ((Number) event.getId()).longValue();
+            if (event.isFor(Team.class)) {
+                if (event.getType() == EntityChangeEvent.Type.DELETE) {
+                    teamNames.remove(id);
+                } else {
+                    teamNames.put(id, (String) event.get("name"));
+                }
+                return;
+            }
+
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    Team team = (Team) event.get("team");
+                    int age = (Integer) event.get("age");
+                    long teamId = team != null && team.getId() != null ? team.getId() : NO_TEAM;
+                    int row = rowById.get(id);
+                    if (row == LongIntHashMap.MISSING) {
+                        append(id, age, teamId);
+                    } else {
+                        unindex(row);
+                        ages[row] = age;
+                        teamIds[row] = teamId;
+                        index(row);
+                    }
+                    break;
+                case DELETE:
+                    delete(id);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void append(long id, int age, long teamId) {
+            if (rows == ids.length) {
+                int capacity = rows * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+            }
+            ids[rows] = id;
+            ages[rows] = age;
+            teamIds[rows] = teamId;
+            rowById.put(id, rows);
+            index(rows);
+            rows++;
+        }
+
+        private void delete(long id) {
+            int row = rowById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return;
+            }
+            unindex(row);
+            ids[row] = DELETED;
+            int dead = rows - all.getCardinality();
+            if (dead > 1024 && dead > rows / 4) {
+                compact();
+            }
+        }
+
+        private void index(int row) {
+            all.add(row);
+            byAge.computeIfAbsent(ages[row], k -> new RoaringBitmap()).add(row);
+            if (teamIds[row] != NO_TEAM) {
+                byTeam.computeIfAbsent(teamIds[row], k -> new RoaringBitmap()).add(row);
+            }
+        }
+
+        private void unindex(int row) {
+            all.remove(row);
+            removeFrom(byAge, ages[row], row);
+            if (teamIds[row] != NO_TEAM) {
+                removeFrom(byTeam, teamIds[row], row);
+            }
+        }
+
+        private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int row) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                bitmap.remove(row);
+                if (bitmap.isEmpty()) {
+                    bitmaps.remove(key);
+                }
+            }
+        }
+
+        /**
+         * 삭제 표시된 행을 제거하고 비트맵을 다시 만든다.
+         */
+        private void compact() {
+            all.clear();
+            byAge.clear();
+            byTeam.clear();
+            rowById.clear();
+            int target = 0;
+            for (int row = 0; row < rows; row++) {
+                if (ids[row] == DELETED) {
+                    continue;
+                }
+                ids[target] = ids[row];
+                ages[target] = ages[row];
+                teamIds[target] = teamIds[row];
+                rowById.put(ids[target], target);
+                index(target);
+                target++;
+            }
+            rows = target;
+            optimize();
+        }
+
+        /**
+         * 연속된 행 번호는 run 컨테이너로 바꿔서 메모리를 줄인다.
+         */
+        void optimize() {
+            all.runOptimize();
+            byAge.values().forEach(RoaringBitmap::runOptimize);
+            byTeam.values().forEach(RoaringBitmap::runOptimize);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 회원 검색용 메모리 스냅샷 (컬럼 단위)
+ *
+ * 필터만 있는 검색(MemberRepositoryCustom.search)을 DB 없이 처리한다.
+ *   - 컬럼: long[] ids, int[] ages, long[] teamIds, int[] usernames(사전 번호)
+ *   - 검색조건을 먼저 사전/팀 단위로 한 번만 평가하고(회원명 일치 여부 boolean[], 팀 일치 여부),
+ *     행은 primitive 배열을 순서대로 읽는 반복문으로 거른다.
+ *   - 삭제된 행은 id 를 DELETED 로 표시하고, 삭제가 많아지면 압축한다.
+ *
+ * Member, Team 변경 이벤트로 갱신한다. 만들고 갱신하는 방식은 EventMaintainedIndex 참고.
+ */
+@Slf4j
+@Component
+public class MemberSnapshot extends EventMaintainedIndex<MemberSnapshot.Columns> {
+
+    private static final long DELETED = Long.MIN_VALUE;
+    private static final long NO_TEAM = Long.MIN_VALUE;
+    private static final int NO_USERNAME = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MemberSnapshot(JdbcTemplate jdbcTemplate,
+                          @Value("${member.snapshot.enabled:false}") boolean enabled,
+                          @Value("${member.snapshot.refresh-interval-ms:600000}") long refreshIntervalMs) {
+        super("member-snapshot", enabled, refreshIntervalMs, new Columns());
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return 검색 결과. 스냅샷이 준비되지 않았거나 stale 이면 null
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return read(columns -> columns.search(condition));
+    }
+
+    /**
+     * @return 회원 수. 스냅샷이 준비되지 않았으면 0
+     */
+    public int size() {
+        Integer live = read(columns -> columns.live);
+        return live != null ? live : 0;
+    }
+
+    @Override
+    protected Columns load() {
+        Columns loaded = new Columns();
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query("select team_id, name from team",
+                rs -> {
+                    loaded.teamNames.put(rs.getLong(1), rs.getString(2));
+                });
+        jdbcTemplate.query("select member_id, username, age, team_id from member order by member_id",
+                rs -> {
+                    long teamId = rs.getLong(4);
+                    loaded.append(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.wasNull() ? null : teamId);
+                });
+        log.info("member snapshot built. members={}, usernames={}, {}ms",
+                loaded.live, loaded.dictionary.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    @Override
+    protected void apply(Columns columns, EntityChangeEvent event) {
+        columns.apply(event);
+    }
+
+    @Override
+    protected boolean handles(EntityChangeEvent event) {
+        return event.isFor(Member.class) || event.isFor(Team.class);
+    }
+
+    static class Columns {
+
+        private long[] ids = new long[1024];
+        private int[] ages = new int[1024];
+        private long[] teamIds = new long[1024];
+        private int[] usernames = new int[1024];
+        private int rows;
+        private int live;
+
+        private final Map<Long, Integer> rowById = new HashMap<>();
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> dictionaryValues = new ArrayList<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+
+        List<MemberTeamDto> search(MemberSearchCondition condition) {
+            boolean[] usernameMatches = StringUtils.hasText(condition.getUsername()) ? usernameMatches(condition) : null;
+            long[] teams = StringUtils.hasText(condition.getTeamName()) ? teamIdsNamed(condition.getTeamName()) : null;
+            int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            if (teams != null && teams.length == 0) {
+                return result;
+            }
+
+            for (int row = 0; row < rows; row++) {
+                if (ids[row] == DELETED) {
+                    continue;
+                }
+                int age = ages[row];
+                if (age < ageGoe || age > ageLoe) {
+                    continue;
+                }
+                if (usernameMatches != null && (usernames[row] == NO_USERNAME || !usernameMatches[usernames[row]])) {
+                    continue;
+                }
+                if (teams != null && !contains(teams, teamIds[row])) {
+                    continue;
+                }
+
+                result.add(toDto(row));
+            }
+            return result;
+        }
+
+        /**
+         * 사전의 회원명마다 조건 일치 여부를 한 번만 계산한다.
+         */
+        private boolean[] usernameMatches(MemberSearchCondition condition) {
+            UsernameMatch match = condition.getUsernameMatch() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT;
+            boolean ignoreCase = condition.isUsernameIgnoreCase();
+            String keyword = ignoreCase ? condition.getUsername().toLowerCase(Locale.ROOT) : condition.getUsername();
+
+            boolean[] matches = new boolean[dictionaryValues.size()];
+            for (int code = 0; code < matches.length; code++) {
+                String value = dictionaryValues.get(code);
+                if (ignoreCase) {
+                    value = value.toLowerCase(Locale.ROOT);
+                }
+                switch (match) {
+                    case PREFIX:
+                        matches[code] = value.startsWith(keyword);
+                        break;
+                    case CONTAINS:
+                        matches[code] = value.contains(keyword);
+                        break;
+                    default:
+                        matches[code] = value.equals(keyword);
+                }
+            }
+            return matches;
+        }
+
+        private long[] teamIdsNamed(String teamName) {
+            return teamNames.entrySet().stream()
+                    .filter(e -> teamName.equals(e.getValue()))
+                    .mapToLong(Map.Entry::getKey)
+                    .toArray();
+        }
+
+        private static boolean contains(long[] values, long value) {
+            for (long v : values) {
+                if (v == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private MemberTeamDto toDto(int row) {
+            Long teamId = teamIds[row] == NO_TEAM ? null : teamIds[row];
+            String username = usernames[row] == NO_USERNAME ? null : dictionaryValues.get(usernames[row]);
+            return new MemberTeamDto(ids[row], username, ages[row], teamId, teamId != null ? teamNames.get(teamId) : null);
+        }
+
+        void apply(EntityChangeEvent event) {
+            long id = ((Number) event.getId()).longValue();
+            if (event.isFor(Team.class)) {
+                if (event.getType() == EntityChangeEvent.Type.DELETE) {
+                    teamNames.remove(id);
+                } else {
+                    teamNames.put(id, (String) event.get("name"));
+                }
+                return;
+            }
+
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    Team team = (Team) event.get("team");
+                    Long teamId = team != null ? team.getId() : null;
+                    Integer row = rowById.get(id);
+                    if (row == null) {
+                        append(id, (String) event.get("username"), (Integer) event.get("age"), teamId);
+                    } else {
+                        ages[row] = (Integer) event.get("age");
+                        teamIds[row] = teamId != null ? teamId : NO_TEAM;
+                        usernames[row] = encode((String) event.get("username"));
+                    }
+                    break;
+                case DELETE:
+                    delete(id);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void append(long id, String username, int age, Long teamId) {
+            if (rows == ids.length) {
+                int capacity = rows * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                ages = Arrays.copyOf(ages, capacity);
+                teamIds = Arrays.copyOf(teamIds, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+            }
+            ids[rows] = id;
+            ages[rows] = age;
+            teamIds[rows] = teamId != null ? teamId : NO_TEAM;
+            usernames[rows] = encode(username);
+            rowById.put(id, rows);
+            rows++;
+            live++;
+        }
+
+        private void delete(long id) {
+            Integer row = rowById.remove(id);
+            if (row == null) {
+                return;
+            }
+            ids[row] = DELETED;
+            live--;
+            if (rows - live > 1024 && rows - live > rows / 4) {
+                compact();
+            }
+        }
+
+        /**
+         * 삭제 표시된 행을 제거한다. (사전은 그대로 둔다)
+         */
+        private void compact() {
+            int target = 0;
+            rowById.clear();
+            for (int row = 0; row < rows; row++) {
+                if (ids[row] == DELETED) {
+                    continue;
+                }
+                ids[target] = ids[row];
+                ages[target] = ages[row];
+                teamIds[target] = teamIds[row];
+                usernames[target] = usernames[row];
+                rowById.put(ids[target], target);
+                target++;
+            }
+            rows = target;
+        }
+
+        private int encode(String username) {
+            if (username == null) {
+                return NO_USERNAME;
+            }
+            Integer code = dictionary.get(username);
+            if (code == null) {
+                code = dictionaryValues.size();
+                dictionary.put(username, code);
+                dictionaryValues.add(username);
+            }
+            return code;
+        }
+    }
+}
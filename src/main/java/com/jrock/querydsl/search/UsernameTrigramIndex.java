@@ -0,0 +1,254 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 회원명 trigram(3글자) 역색인 (메모리, member.username-index.enabled=true 일 때만 사용)
+ *
+ * LIKE '%x%' 는 B-tree 인덱스를 사용할 수 없어서 전체 스캔이다.
+ * 회원명을 소문자로 바꾼 뒤 연속된 3글자 조각마다 행 번호 비트맵(RoaringBitmap)을 만들어 두고,
+ * 검색어의 조각 비트맵을 교집합해서 후보를 찾은 후 실제 이름으로 한 번 더 확인한다.
+ *   - 행은 primitive 배열(long[] ids, String[] usernames)이고, 회원 id -> 행 번호는 LongIntHashMap 이다.
+ *   - 조각은 3글자를 long 하나로 만든 키를 쓴다. (조각 수는 회원 수와 무관하게 제한된다)
+ *   - 대소문자 구분 검색도 소문자 색인으로 후보를 찾고 확인 단계에서 구분한다.
+ *   - 검색어가 3글자보다 짧거나 결과가 maxMatches 를 넘으면 null 을 반환한다. (호출한 쪽이 DB LIKE 로 조회)
+ *
+ * 결과는 근사값이다. 색인은 커밋 이후 이벤트로 갱신되므로, 방금 커밋된 회원, 이름이 바뀐 회원,
+ * 같은 트랜잭션에서 아직 커밋하지 않은 회원이 빠질 수 있다. (이벤트 순서가 뒤바뀐 경우 다음 refresh 까지)
+ * 그래서 기본값은 꺼져 있고, 검색 결과가 잠깐 어긋나도 되는 화면에서만 켠다.
+ * 정확해야 하면 DB 쪽 인덱스(trigram 인덱스, lower(username) 함수 인덱스)를 사용한다.
+ *
+ * Member 변경 이벤트로 갱신한다. 만들고 갱신하는 방식은 EventMaintainedIndex 참고.
+ */
+@Slf4j
+@Component
+public class UsernameTrigramIndex extends EventMaintainedIndex<UsernameTrigramIndex.Grams> {
+
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxMatches;
+
+    public UsernameTrigramIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${member.username-index.enabled:false}") boolean enabled,
+                                @Value("${member.username-index.refresh-interval-ms:600000}") long refreshIntervalMs,
+                                @Value("${member.username-index.max-matches:1000}") int maxMatches) {
+        super("username-index", enabled, refreshIntervalMs, new Grams());
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * @return 조건에 맞는 회원 id (오름차순). 색인을 사용할 수 없으면 null
+     */
+    public long[] search(String keyword, UsernameMatch match, boolean ignoreCase) {
+        if (keyword.length() < GRAM) {
+            return null;
+        }
+        return read(grams -> grams.search(keyword, match, ignoreCase, maxMatches));
+    }
+
+    @Override
+    protected Grams load() {
+        Grams loaded = new Grams();
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query("select member_id, username from member order by member_id", rs -> {
+            loaded.add(rs.getLong(1), rs.getString(2));
+        });
+        loaded.optimize();
+        log.info("username trigram index built. members={}, grams={}, {}ms",
+                loaded.rowById.size(), loaded.postings.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    @Override
+    protected void apply(Grams grams, EntityChangeEvent event) {
+        grams.apply(event);
+    }
+
+    @Override
+    protected boolean handles(EntityChangeEvent event) {
+        return event.isFor(Member.class);
+    }
+
+    static class Grams {
+
+        private long[] ids = new long[1024];
+        private String[] usernames = new String[1024]; // 삭제된 행은 null
+        private int rows;
+
+        private final LongIntHashMap rowById = new LongIntHashMap();
+        private final Map<Long, RoaringBitmap> postings = new HashMap<>(); // 조각 -> 행 번호
+
+        long[] search(String keyword, UsernameMatch match, boolean ignoreCase, int maxMatches) {
+            String lower = keyword.toLowerCase(Locale.ROOT);
+            RoaringBitmap candidates = candidates(lower);
+
+            long[] result = new long[Math.min(candidates.getCardinality(), maxMatches + 1)];
+            int size = 0;
+            for (int row : candidates) {
+                if (matches(usernames[row], keyword, lower, match, ignoreCase)) {
+                    if (size == maxMatches) {
+                        return null; // 너무 많으면 IN 목록보다 DB 조회가 낫다
+                    }
+                    result[size++] = ids[row];
+                }
+            }
+            long[] matched = Arrays.copyOf(result, size);
+            Arrays.sort(matched);
+            return matched;
+        }
+
+        /**
+         * 검색어 조각들의 행 비트맵 교집합. 가장 작은 비트맵부터 줄여 나간다.
+         */
+        private RoaringBitmap candidates(String lowerKeyword) {
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            for (long gram : grams(lowerKeyword)) {
+                RoaringBitmap rows = postings.get(gram);
+                if (rows == null) {
+                    return new RoaringBitmap();
+                }
+                bitmaps.add(rows);
+            }
+            bitmaps.sort((a, b) -> Integer.compare(a.getCardinality(), b.getCardinality()));
+
+            RoaringBitmap result = bitmaps.get(0);
+            for (int i = 1; i < bitmaps.size() && !result.isEmpty(); i++) {
+                result = RoaringBitmap.and(result, bitmaps.get(i));
+            }
+            return result;
+        }
+
+        void apply(EntityChangeEvent event) {
+            long id = ((Number) event.getId()).longValue();
+            switch (event.getType()) {
+                case INSERT:
+                case UPDATE:
+                    remove(id);
+                    add(id, (String) event.get("username"));
+                    break;
+                case DELETE:
+                    remove(id);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void add(long id, String username) {
+            if (username == null) {
+                return;
+            }
+            if (rows == ids.length) {
+                ids = Arrays.copyOf(ids, rows * 2);
+                usernames = Arrays.copyOf(usernames, rows * 2);
+            }
+            int row = rows++;
+            ids[row] = id;
+            usernames[row] = username;
+            rowById.put(id, row);
+            for (long gram : grams(username.toLowerCase(Locale.ROOT))) {
+                postings.computeIfAbsent(gram, g -> new RoaringBitmap()).add(row);
+            }
+        }
+
+        private void remove(long id) {
+            int row = rowById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return;
+            }
+            for (long gram : grams(usernames[row].toLowerCase(Locale.ROOT))) {
+                RoaringBitmap bitmap = postings.get(gram);
+                if (bitmap != null) {
+                    bitmap.remove(row);
+                    if (bitmap.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            usernames[row] = null;
+            if (rows - rowById.size() > 1024 && rows - rowById.size() > rows / 4) {
+                compact();
+            }
+        }
+
+        /**
+         * 삭제된 행을 제거하고 행 번호를 다시 매긴다. (조각 비트맵도 다시 만든다)
+         */
+        private void compact() {
+            long[] liveIds = ids;
+            String[] liveUsernames = usernames;
+            int liveRows = rows;
+
+            ids = new long[Math.max(1024, rowById.size() * 2)];
+            usernames = new String[ids.length];
+            rows = 0;
+            rowById.clear();
+            postings.clear();
+            for (int row = 0; row < liveRows; row++) {
+                if (liveUsernames[row] != null) {
+                    add(liveIds[row], liveUsernames[row]);
+                }
+            }
+            optimize();
+        }
+
+        /**
+         * 연속된 행 번호는 run 컨테이너로 바꿔서 메모리를 줄인다.
+         */
+        void optimize() {
+            postings.values().forEach(RoaringBitmap::runOptimize);
+        }
+    }
+
+    private static boolean matches(String username, String keyword, String lowerKeyword,
+                                   UsernameMatch match, boolean ignoreCase) {
+        if (username == null) {
+            return false;
+        }
+        String target = ignoreCase ? username.toLowerCase(Locale.ROOT) : username;
+        String key = ignoreCase ? lowerKeyword : keyword;
+        switch (match) {
+            case PREFIX:
+                return target.startsWith(key);
+            case CONTAINS:
+                return target.contains(key);
+            default:
+                return target.equals(key);
+        }
+    }
+
+    /**
+     * 연속된 3글자 조각. 글자 3개(char 16bit)를 long 하나로 만든다. (조각마다 String 을 만들지 않는다)
+     */
+    private static long[] grams(String value) {
+        int count = Math.max(0, value.length() - GRAM + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = ((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || grams[size - 1] != grams[i]) {
+                grams[size++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, size);
+    }
+}
@@ -0,0 +1,263 @@
+package com.jrock.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.MemberIngestResult;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.repository.MemberJpaRepository;
+import com.jrock.querydsl.repository.TeamRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 회원 대량 등록 (CSV, NDJSON)
+ *   - 요청 본문을 한 줄씩 읽으면서 바로 저장한다. 업로드 전체를 메모리에 올리지 않는다.
+ *   - batchSize 행마다 별도의 트랜잭션으로 저장한다. (MemberJpaRepository.saveAllAndDetach, JDBC 배치)
+ *   - 팀 이름은 로컬 Map 으로 team_id 를 찾아 둔다. 팀 이름마다 한 번만 조회하고, 그마저도 쿼리 캐시에서 가져온다.
+ *   - 형식이 잘못되었거나 없는 팀인 행은 건너뛰고 거부 건수로 보고한다.
+ *
+ * 주의: 배치 단위로 커밋하므로 중간에 실패하면 앞의 배치는 이미 저장되어 있다.
+ */
+@Slf4j
+@Service
+public class MemberIngestService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(MediaType contentType) {
+            if (contentType != null && "csv".equalsIgnoreCase(contentType.getSubtype())) {
+                return CSV;
+            }
+            if (contentType != null && contentType.getSubtype().toLowerCase().endsWith("ndjson")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("text/csv 또는 application/x-ndjson 만 지원합니다. contentType=" + contentType);
+        }
+    }
+
+    private static final int MAX_REJECTION_SAMPLES = 100;
+    private static final String[] CSV_COLUMNS = {"username", "age", "teamName"};
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final TeamRepository teamRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public MemberIngestService(MemberJpaRepository memberJpaRepository,
+                               TeamRepository teamRepository,
+                               EntityManager em,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.teamRepository = teamRepository;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public MemberIngestResult ingest(InputStream body, Format format) throws IOException {
+        long start = System.nanoTime();
+        Map<String, Optional<Long>> teamIds = new HashMap<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+        List<MemberIngestResult.Rejection> rejections = new ArrayList<>();
+        long accepted = 0;
+        long rejected = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int[] csvIndexes = format == Format.CSV ? csvHeader(reader.readLine()) : null;
+        long lineNumber = format == Format.CSV ? 1 : 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                Row row = format == Format.CSV ? parseCsv(line, csvIndexes) : parseJson(line);
+                row.teamId = resolveTeam(teamIds, row.teamName);
+                batch.add(row);
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (rejections.size() < MAX_REJECTION_SAMPLES) {
+                    rejections.add(new MemberIngestResult.Rejection(lineNumber, e.getMessage()));
+                }
+                continue;
+            }
+
+            if (batch.size() >= batchSize) {
+                accepted += write(batch);
+            }
+        }
+        accepted += write(batch);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long rowsPerSecond = elapsedMillis == 0 ? accepted : accepted * 1000 / elapsedMillis;
+        log.info("member bulk ingest finished. format={}, accepted={}, rejected={}, elapsed={}ms, rows/s={}",
+                format, accepted, rejected, elapsedMillis, rowsPerSecond);
+
+        return new MemberIngestResult(accepted, rejected, elapsedMillis, rowsPerSecond, rejections);
+    }
+
+    /**
+     * 팀은 id 로만 참조한다. (getReference 프록시를 setTeam)
+     * 반대쪽 team.members 를 맞출 필요가 없으므로 changeTeam() 대신 setTeam 을 사용한다.
+     */
+    private long write(List<Row> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Long saved = transactionTemplate.execute(status -> {
+            List<Member> members = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                Member member = new Member(row.username, row.age);
+                if (row.teamId != null) {
+                    member.setTeam(em.getReference(Team.class, row.teamId));
+                }
+                members.add(member);
+            }
+            return memberJpaRepository.saveAllAndDetach(members);
+        });
+        batch.clear();
+        return saved == null ? 0 : saved;
+    }
+
+    private Long resolveTeam(Map<String, Optional<Long>> teamIds, String teamName) {
+        if (!StringUtils.hasText(teamName)) {
+            return null;
+        }
+
+        Optional<Long> teamId = teamIds.computeIfAbsent(teamName, name -> teamRepository
+                .findFirstByNameOrderByIdAsc(name)
+                .map(Team::getId));
+
+        return teamId.orElseThrow(() -> new IllegalArgumentException("존재하지 않는 팀 입니다. teamName=" + teamName));
+    }
+
+    private int[] csvHeader(String header) {
+        if (header == null) {
+            return null;
+        }
+
+        List<String> columns = splitCsv(header);
+        int[] indexes = new int[CSV_COLUMNS.length];
+        for (int i = 0; i < CSV_COLUMNS.length; i++) {
+            indexes[i] = columns.indexOf(CSV_COLUMNS[i]);
+        }
+        if (indexes[0] < 0 || indexes[1] < 0) {
+            throw new IllegalArgumentException("CSV 헤더에 username, age 가 필요합니다. header=" + header);
+        }
+        return indexes;
+    }
+
+    private Row parseCsv(String line, int[] indexes) {
+        List<String> values = splitCsv(line);
+        String teamName = indexes[2] >= 0 && indexes[2] < values.size() ? values.get(indexes[2]) : null;
+        return Row.of(column(values, indexes[0]), column(values, indexes[1]), teamName);
+    }
+
+    private Row parseJson(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return Row.of(text(node, "username"), text(node, "age"), text(node, "teamName"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON 형식이 아닙니다. " + e.getOriginalMessage());
+        }
+    }
+
+    private static String column(List<String> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * 큰따옴표로 감싼 값(,"" 포함)을 지원하는 CSV 한 줄 분리
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    private static class Row {
+        private final String username;
+        private final int age;
+        private final String teamName;
+        private Long teamId;
+
+        private Row(String username, int age, String teamName) {
+            this.username = username;
+            this.age = age;
+            this.teamName = teamName;
+        }
+
+        static Row of(String username, String age, String teamName) {
+            if (!StringUtils.hasText(username)) {
+                throw new IllegalArgumentException("username 이 없습니다.");
+            }
+            int parsedAge;
+            try {
+                parsedAge = Integer.parseInt(age == null ? "" : age.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("age 가 숫자가 아닙니다. age=" + age);
+            }
+            if (parsedAge < 0) {
+                throw new IllegalArgumentException("age 는 0 이상이어야 합니다. age=" + parsedAge);
+            }
+            return new Row(username, parsedAge, teamName);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.jrock.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 팀 집계(team_stats)를 주기적으로 실제 회원 데이터와 맞춘다. (TeamStatsService.reconcile)
+ * 벌크 연산이나 DB 를 직접 수정해서 리스너를 거치지 않은 변경을 바로잡는다.
+ * 시작할 때 한 번 바로 실행해서, 배포 전에 쌓인 어긋난 값이 첫 주기까지 남아 있지 않게 한다.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "team-stats.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TeamStatsReconcileJob {
+
+    private final TeamStatsService teamStatsService;
+
+    @Scheduled(initialDelay = 0,
+            fixedDelayString = "${team-stats.reconcile.interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            teamStatsService.reconcile();
+        } catch (RuntimeException e) {
+            log.warn("team stats reconcile failed", e);
+        }
+    }
+}
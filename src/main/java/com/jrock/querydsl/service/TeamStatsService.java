@@ -0,0 +1,207 @@
+package com.jrock.querydsl.service;
+
+import com.jrock.querydsl.dto.QTeamStatsDto;
+import com.jrock.querydsl.dto.TeamStatsDto;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.entity.TeamStats;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import com.jrock.querydsl.event.TeamStatsListener;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.jrock.querydsl.entity.QMember.member;
+import static com.jrock.querydsl.entity.QTeam.team;
+import static com.jrock.querydsl.entity.QTeamStats.teamStats;
+
+/**
+ * 팀별 회원 집계 조회, 보정
+ *
+ * 조회는 team_stats 를 팀 수만큼 읽기만 한다. (회원 수와 무관)
+ * 보정(reconcile)은 member 를 팀별로 group by 해서 team_stats 와 다른 값을 고친다.
+ *   - team_id 순서로 batch-size 팀씩 나누어 팀 묶음마다 별도의 트랜잭션으로 커밋한다. (잠금을 짧게, 조금만 잡는다)
+ *   - 묶음마다 먼저 그 범위의 team_stats 행을 잠근다. 회원을 바꾸는 트랜잭션은 커밋 직전에 집계 행을 갱신하므로,
+ *     잠금을 기다렸다가 보정된 값 위에 자기 증감분을 더한다. (보정 중에 커밋된 변경을 덮어쓰지 않는다)
+ *   - 집계 행이 없는 팀은 잠글 행이 없으므로 리스너와 같은 방법(TeamStatsListener.recompute)으로 만든다.
+ *     회원을 바꾸는 트랜잭션이 동시에 만들어도 키 중복으로 묶음이 실패하지 않는다.
+ *   - 나이 합계는 int 를 넘을 수 있으므로 long 으로 합산한다.
+ *   - 벌크 변경 이벤트(EntityChangeEvent.bulk)를 받으면 별도 쓰레드에서 보정한다. (이벤트를 발행한 요청은 기다리지 않는다)
+ *     보정이 아직 시작하지 않았으면 이어서 들어온 이벤트는 그 보정 한 번으로 합친다.
+ *     팀 재배치, 병합처럼 바뀐 팀을 알고 같은 트랜잭션에서 다시 계산한 벌크 변경(teamStatsApplied)은 보정하지 않는다.
+ *     그 외에는 TeamStatsReconcileJob 이 주기적으로 실행한다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+public class TeamStatsService {
+
+    private static final NumberExpression<Long> AGE_SUM = Expressions.numberTemplate(Long.class, "sum({0})", member.age);
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate reconcileTransaction;
+    private final int batchSize;
+    private final AtomicBoolean reconcilePending = new AtomicBoolean();
+    private final ExecutorService reconciler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "team-stats-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TeamStatsService(EntityManager em, JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                            @Value("${team-stats.reconcile.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch-size 는 0보다 커야 합니다. batchSize=" + batchSize);
+        }
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.batchSize = batchSize;
+        // 팀 묶음마다 새 트랜잭션으로 커밋한다.
+        this.reconcileTransaction = new TransactionTemplate(transactionManager);
+        this.reconcileTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.ageMin,
+                        teamStats.ageMax))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId))
+                .orderBy(team.name.asc(), team.id.asc())
+                .fetch();
+    }
+
+    @EventListener
+    public void onBulkChange(EntityChangeEvent event) {
+        if (!event.isBulk() || event.isTeamStatsApplied() || !(event.isFor(Member.class) || event.isFor(Team.class))) {
+            return;
+        }
+        if (!reconcilePending.compareAndSet(false, true)) {
+            return;
+        }
+        reconciler.execute(() -> {
+            reconcilePending.set(false);
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                log.warn("team stats reconcile failed", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciler.shutdownNow();
+    }
+
+    /**
+     * 팀 묶음마다 커밋하므로 호출한 쪽 트랜잭션에 참여하지 않는다.
+     *
+     * @return 값을 고친 팀 수
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcile() {
+        int corrected = 0;
+        long afterId = 0;
+        while (true) {
+            long lowerId = afterId;
+            long[] result = reconcileTransaction.execute(status -> reconcileBatch(lowerId));
+            corrected += result[1];
+            if (result[0] == Long.MAX_VALUE) {
+                break;
+            }
+            afterId = result[0];
+        }
+
+        if (corrected > 0) {
+            log.info("team stats reconciled. corrected={}", corrected);
+        }
+        return corrected;
+    }
+
+    /**
+     * afterId 다음부터 batchSize 개 팀을 보정한다. 마지막 묶음은 남은 집계 행(삭제된 팀)까지 포함한다.
+     *
+     * @return {이번 묶음의 마지막 team_id (마지막 묶음이면 Long.MAX_VALUE), 값을 고친 팀 수}
+     */
+    private long[] reconcileBatch(long afterId) {
+        Long upperId = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(team.id.gt(afterId))
+                .orderBy(team.id.asc())
+                .offset(batchSize - 1)
+                .limit(1)
+                .fetchOne();
+        long lastId = upperId != null ? upperId : Long.MAX_VALUE;
+
+        Map<Long, TeamStats> stats = new HashMap<>();
+        for (TeamStats row : queryFactory
+                .selectFrom(teamStats)
+                .where(teamStats.teamId.gt(afterId), teamStats.teamId.loe(lastId))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch()) {
+            stats.put(row.getTeamId(), row);
+        }
+
+        List<Tuple> actual = queryFactory
+                .select(team.id, member.count(), AGE_SUM, member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.id.gt(afterId), team.id.loe(lastId))
+                .groupBy(team.id)
+                .fetch();
+
+        int corrected = 0;
+        for (Tuple row : actual) {
+            Long teamId = row.get(team.id);
+            Long count = row.get(member.count());
+            Long ageSum = row.get(AGE_SUM);
+
+            TeamStats current = stats.remove(teamId);
+            if (current == null) {
+                em.unwrap(Session.class).doWork(connection -> TeamStatsListener.recompute(connection, teamId));
+                corrected++;
+                continue;
+            }
+            if (current.reconcile(count != null ? count : 0, ageSum != null ? ageSum : 0,
+                    row.get(member.age.min()), row.get(member.age.max()))) {
+                corrected++;
+            }
+        }
+
+        // 삭제된 팀
+        for (TeamStats orphan : stats.values()) {
+            em.remove(orphan);
+            corrected++;
+        }
+        return new long[]{lastId, corrected};
+    }
+}
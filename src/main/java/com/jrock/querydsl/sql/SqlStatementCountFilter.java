@@ -0,0 +1,65 @@
+package com.jrock.querydsl.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * HTTP 요청마다 실행한 SQL 수를 센다.
+ *   - sql.statements.per.request: 요청당 SQL 수 (uri 패턴별)
+ *   - sql.nplusone.suspected: 같은 모양의 select 가 threshold 번 이상 반복된 요청 수
+ * 같은 모양의 select 가 반복되면 N+1 경고 로그를 남긴다.
+ */
+@Slf4j
+@Component
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public SqlStatementCountFilter(MeterRegistry meterRegistry,
+                                   @Value("${sql.n-plus-one.threshold:3}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+            report(request, scope);
+        }
+    }
+
+    private void report(HttpServletRequest request, SqlStatementCounter.Scope scope) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("sql.statements.per.request")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getTotal());
+
+        Map<String, Integer> suspects = scope.getNPlusOneSuspects(nPlusOneThreshold);
+        if (!suspects.isEmpty()) {
+            Counter.builder("sql.nplusone.suspected")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("N+1 의심 [{}] total={}, repeated={}", scope.getName(), scope.getTotal(), suspects);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.jrock.querydsl.sql;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 쓰레드(요청, 테스트) 단위 SQL 실행 횟수 카운터
+ *   - SqlStatementInspector 가 하이버네이트가 실행하는 모든 SQL 을 여기로 넘긴다.
+ *   - 범위(Scope)가 열려 있을 때만 센다. 범위는 중첩될 수 있고, 안쪽 범위의 SQL 은 바깥 범위에도 더해진다.
+ *   - 리터럴, 주석, 공백을 정규화해서 파라미터만 다른 SQL 은 같은 모양으로 센다. (N+1 탐지)
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlStatementCounter() {
+    }
+
+    public static Scope open(String name) {
+        Scope scope = new Scope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(normalize(sql));
+        }
+    }
+
+    static String normalize(String sql) {
+        String normalized = COMMENT.matcher(sql).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim().toLowerCase();
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope parent;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int total;
+        private boolean closed;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        private void record(String statement) {
+            total++;
+            statements.merge(statement, 1, Integer::sum);
+            if (parent != null) {
+                parent.record(statement);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        /**
+         * 모양별 실행 횟수 (실행 순서)
+         */
+        public Map<String, Integer> getStatements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        /**
+         * 같은 모양의 select 가 threshold 번 이상 실행되었으면 N+1 로 의심한다.
+         * 예) 회원 목록 조회 후 LAZY 팀을 하나씩 조회 -> select ... from team where team_id=? 가 회원(팀) 수만큼 반복
+         */
+        public Map<String, Integer> getNPlusOneSuspects(int threshold) {
+            Map<String, Integer> suspects = new LinkedHashMap<>();
+            statements.forEach((statement, count) -> {
+                if (count >= threshold && statement.startsWith("select")) {
+                    suspects.put(statement, count);
+                }
+            });
+            return suspects;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (parent == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
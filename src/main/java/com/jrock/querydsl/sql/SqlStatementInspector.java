@@ -0,0 +1,15 @@
+package com.jrock.querydsl.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 SQL 을 준비(prepare)하기 직전에 호출된다. SQL 은 바꾸지 않고 세기만 한다.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementCounter.record(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,26 @@
+package com.jrock.querydsl.sql.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 샘플링된 SQL 실행 기록 (바인딩 파라미터, 실행 시간 포함)
+ * 배치 실행이면 parameters 는 비어 있고 batchParameters 에 묶음별 파라미터가 들어간다.
+ */
+@Getter
+@AllArgsConstructor
+public class SqlTrace {
+
+    private final long sequence;
+    private final long startedAt;
+    private final long elapsedMicros;
+    private final String thread;
+    private final String sql;
+    private final List<String> parameters;
+    private final int batchSize;
+    /** executeBatch 이면 addBatch 한 파라미터 묶음 (최대 MAX_BATCH_PARAMETER_SETS 개), 아니면 비어 있다. */
+    private final List<List<String>> batchParameters;
+    private final String error;
+}
@@ -0,0 +1,64 @@
+package com.jrock.querydsl.sql.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 최근 SQL 실행 기록을 담는 고정 크기 링 버퍼 (락 없음)
+ *   - 쓰기: 순번을 하나 받아서 (순번 & mask) 칸에 덮어쓴다. 오래된 기록부터 자연스럽게 밀려난다.
+ *   - 읽기: 각 칸을 읽어서 순번순으로 정렬한다. 읽는 동안 덮어써진 칸은 최신 기록이 보일 수 있다.
+ */
+public class SqlTraceBuffer {
+
+    private final AtomicReferenceArray<SqlTrace> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SqlTraceBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1; // 2의 거듭제곱으로 올림
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void add(long startedAt, long elapsedMicros, String sql, List<String> parameters, int batchSize, String error) {
+        add(startedAt, elapsedMicros, sql, parameters, batchSize, Collections.emptyList(), error);
+    }
+
+    public void add(long startedAt, long elapsedMicros, String sql, List<String> parameters, int batchSize,
+                    List<List<String>> batchParameters, String error) {
+        long seq = sequence.getAndIncrement();
+        SqlTrace trace = new SqlTrace(seq, startedAt, elapsedMicros, Thread.currentThread().getName(),
+                sql, parameters, batchSize, batchParameters, error);
+        slots.set((int) (seq & mask), trace);
+    }
+
+    public List<SqlTrace> snapshot() {
+        List<SqlTrace> traces = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            SqlTrace trace = slots.get(i);
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        traces.sort(Comparator.comparingLong(SqlTrace::getSequence));
+        return traces;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long recorded() {
+        return sequence.get();
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
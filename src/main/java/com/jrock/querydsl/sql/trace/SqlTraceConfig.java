@@ -0,0 +1,64 @@
+package com.jrock.querydsl.sql.trace;
+
+import com.jrock.querydsl.datasource.ReadReplicaRoutingDataSource;
+import com.jrock.querydsl.datasource.ReplicaSet;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * 샘플링 SQL 추적 설정 (p6spy 대체)
+ *   - sql.trace.sample-rate: 추적할 커넥션 비율 (0 ~ 1)
+ *   - sql.trace.buffer-size: 보관할 최근 SQL 개수 (/actuator/sqltrace)
+ */
+@Configuration
+@ConditionalOnProperty(name = "sql.trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTraceConfig {
+
+    @Bean
+    SqlTraceBuffer sqlTraceBuffer(@Value("${sql.trace.buffer-size:1024}") int bufferSize) {
+        return new SqlTraceBuffer(bufferSize);
+    }
+
+    /**
+     * 실제 커넥션 풀만 감싼다. 라우팅, 지연 프록시(LazyConnectionDataSourceProxy 등 DelegatingDataSource)는 감싸지 않는다.
+     *   - 복제본을 쓰지 않으면 자동 설정된 dataSource 풀
+     *   - 복제본을 쓰면 primaryDataSource 풀과 ReplicaSet 의 복제본 풀 (빈 이름과 상관없이 같은 SQL 을 두 번 기록하지 않는다)
+     */
+    @Bean
+    static BeanPostProcessor tracingDataSourcePostProcessor(
+            ObjectProvider<SqlTraceBuffer> buffer,
+            @Value("${sql.trace.sample-rate:0.01}") double sampleRate) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ReplicaSet) {
+                    ((ReplicaSet) bean).decorate(pool -> new TracingDataSource(pool, buffer.getObject(), sampleRate));
+                    return bean;
+                }
+                if (bean instanceof DataSource && isPool((DataSource) bean)) {
+                    return new TracingDataSource((DataSource) bean, buffer.getObject(), sampleRate);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean isPool(DataSource dataSource) {
+        return !(dataSource instanceof DelegatingDataSource)
+                && !(dataSource instanceof AbstractRoutingDataSource)
+                && !(dataSource instanceof ReadReplicaRoutingDataSource);
+    }
+
+    @Bean
+    SqlTraceEndpoint sqlTraceEndpoint(SqlTraceBuffer buffer) {
+        return new SqlTraceEndpoint(buffer);
+    }
+}
@@ -0,0 +1,37 @@
+package com.jrock.querydsl.sql.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 샘플링된 최근 SQL 조회 (/actuator/sqltrace)
+ */
+@Endpoint(id = "sqltrace")
+public class SqlTraceEndpoint {
+
+    private final SqlTraceBuffer buffer;
+
+    public SqlTraceEndpoint(SqlTraceBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> traces() {
+        List<SqlTrace> traces = buffer.snapshot();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", buffer.capacity());
+        result.put("recorded", buffer.recorded());
+        result.put("traces", traces);
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        buffer.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package com.jrock.querydsl.sql.trace;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 샘플링 SQL 추적 DataSource
+ *
+ * p6spy 는 모든 커넥션, 모든 Statement 를 감싸기 때문에 운영에서는 비용이 크다.
+ * 여기서는 커넥션을 꺼낼 때(보통 트랜잭션 하나) sampleRate 확률로만 프록시를 씌운다.
+ *   - 샘플링되지 않은 커넥션은 원래 커넥션을 그대로 돌려준다. (SQL 마다 추가 비용 없음)
+ *   - 샘플링된 커넥션의 Statement 는 SQL, 바인딩 파라미터, 실행 시간을 SqlTraceBuffer 에 남긴다.
+ *   - 배치는 addBatch 마다 파라미터 묶음을 모아 두었다가 executeBatch 때 한 번에 남긴다.
+ *   - Statement.getConnection() 은 원래 커넥션이 아니라 추적 중인 프록시 커넥션을 돌려준다.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+    private static final int MAX_PARAMETER_LENGTH = 200;
+    static final int MAX_BATCH_PARAMETER_SETS = 1000;
+
+    private final SqlTraceBuffer buffer;
+    private final double sampleRate;
+
+    public TracingDataSource(DataSource target, SqlTraceBuffer buffer, double sampleRate) {
+        super(target);
+        this.buffer = buffer;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return sample(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return sample(super.getConnection(username, password));
+    }
+
+    private Connection sample(Connection connection) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = TracingDataSource.invoke(target, method, args);
+
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statementProxy(PreparedStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+                case "prepareCall":
+                    return statementProxy(CallableStatement.class, (Statement) result, (Connection) proxy, (String) args[0]);
+                case "createStatement":
+                    return statementProxy(Statement.class, (Statement) result, (Connection) proxy, null);
+                default:
+                    return result;
+            }
+        }
+
+        private Object statementProxy(Class<? extends Statement> type, Statement statement, Connection connection, String sql) {
+            return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, connection, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final Connection connection;
+        private final String preparedSql;
+        private final Map<Integer, String> parameters = new TreeMap<>();
+        private final List<List<String>> batchParameters = new ArrayList<>();
+        private int batchSize;
+
+        private StatementHandler(Statement target, Connection connection, String preparedSql) {
+            this.target = target;
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("getConnection")) {
+                return connection;
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], describe(args[1]));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (batchParameters.size() < MAX_BATCH_PARAMETER_SETS) {
+                    // 문자열 SQL 배치(Statement.addBatch(sql))는 SQL 자체를 남긴다.
+                    batchParameters.add(args != null && args.length == 1
+                            ? Collections.singletonList(describe(args[0]))
+                            : new ArrayList<>(parameters.values()));
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+                batchParameters.clear();
+            } else if (name.startsWith("execute")) {
+                return traced(method, args);
+            }
+            return TracingDataSource.invoke(target, method, args);
+        }
+
+        private Object traced(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            long startedAt = System.currentTimeMillis();
+            long start = System.nanoTime();
+            String error = null;
+            try {
+                return TracingDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                error = e.toString();
+                throw e;
+            } finally {
+                long elapsedMicros = (System.nanoTime() - start) / 1000;
+                if (method.getName().equals("executeBatch")) {
+                    buffer.add(startedAt, elapsedMicros, sql, Collections.emptyList(), batchSize,
+                            new ArrayList<>(batchParameters), error);
+                    batchSize = 0;
+                    batchParameters.clear();
+                } else {
+                    List<String> bound = parameters.isEmpty()
+                            ? Collections.emptyList()
+                            : new ArrayList<>(parameters.values());
+                    buffer.add(startedAt, elapsedMicros, sql, bound, batchSize, error);
+                }
+            }
+        }
+
+        private String describe(Object value) {
+            if (value == null) {
+                return "null";
+            }
+            String text = value.toString();
+            return text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text;
+        }
+    }
+}
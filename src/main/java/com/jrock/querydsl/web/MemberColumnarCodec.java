@@ -0,0 +1,228 @@
+package com.jrock.querydsl.web;
+
+import com.jrock.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List<MemberTeamDto> 컬럼 단위 바이너리 형식 (서비스 간 호출용)
+ *
+ * 행 단위 JSON 대신 컬럼별 배열로 보낸다. 모든 정수는 big-endian (DataOutputStream)
+ *
+ *   magic     int      'MTC1'
+ *   rows      int      행 수 (n)
+ *   memberId  bitmap + long[n]   (null 이면 bitmap 비트가 0, 값은 0)
+ *   username  bitmap + int[n] 바이트 길이 + UTF-8 바이트
+ *   age       int[n]
+ *   teamId    bitmap + long[n]
+ *   teamName  int 사전 크기 + (int 길이 + UTF-8 바이트) * 사전 크기 + int[n] 사전 번호 (null 은 -1)
+ *
+ * bitmap 은 (n + 7) / 8 바이트, i 번째 행이 값이 있으면 (i / 8) 번째 바이트의 (i % 8) 비트가 1 이다.
+ * 팀 이름은 종류가 적으므로 사전으로 한 번만 보낸다.
+ *
+ * decode 는 외부 입력을 읽으므로 행 수, 문자열 길이, 사전 크기와 번호를 검사해서 잘못되면 IOException 을 던진다.
+ * (잘못된 길이로 큰 배열을 만들거나 ArrayIndexOutOfBoundsException 이 나지 않도록)
+ */
+public final class MemberColumnarCodec {
+
+    public static final int MAGIC = 0x4d544331; // "MTC1"
+    public static final int MAX_ROWS = 1 << 22;
+    public static final int MAX_STRING_BYTES = 64 * 1024;
+
+    private MemberColumnarCodec() {
+    }
+
+    public static void encode(List<MemberTeamDto> members, OutputStream outputStream) throws IOException {
+        int rows = members.size();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream, 8 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(rows);
+
+        // memberId
+        byte[] presence = new byte[bitmapSize(rows)];
+        for (int i = 0; i < rows; i++) {
+            if (members.get(i).getMemberId() != null) {
+                set(presence, i);
+            }
+        }
+        out.write(presence);
+        for (MemberTeamDto member : members) {
+            out.writeLong(member.getMemberId() != null ? member.getMemberId() : 0L);
+        }
+
+        // username
+        byte[][] usernames = new byte[rows][];
+        presence = new byte[bitmapSize(rows)];
+        for (int i = 0; i < rows; i++) {
+            String username = members.get(i).getUsername();
+            if (username != null) {
+                set(presence, i);
+                usernames[i] = username.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        out.write(presence);
+        for (byte[] username : usernames) {
+            out.writeInt(username != null ? username.length : 0);
+        }
+        for (byte[] username : usernames) {
+            if (username != null) {
+                out.write(username);
+            }
+        }
+
+        // age
+        for (MemberTeamDto member : members) {
+            out.writeInt(member.getAge());
+        }
+
+        // teamId
+        presence = new byte[bitmapSize(rows)];
+        for (int i = 0; i < rows; i++) {
+            if (members.get(i).getTeamId() != null) {
+                set(presence, i);
+            }
+        }
+        out.write(presence);
+        for (MemberTeamDto member : members) {
+            out.writeLong(member.getTeamId() != null ? member.getTeamId() : 0L);
+        }
+
+        // teamName (사전)
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int[] codes = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            String teamName = members.get(i).getTeamName();
+            if (teamName == null) {
+                codes[i] = -1;
+                continue;
+            }
+            Integer code = dictionary.get(teamName);
+            if (code == null) {
+                code = entries.size();
+                dictionary.put(teamName, code);
+                entries.add(teamName);
+            }
+            codes[i] = code;
+        }
+        out.writeInt(entries.size());
+        for (String entry : entries) {
+            byte[] bytes = entry.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        for (int code : codes) {
+            out.writeInt(code);
+        }
+
+        out.flush();
+    }
+
+    public static List<MemberTeamDto> decode(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream, 8 * 1024));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("MemberColumnar 형식이 아닙니다.");
+        }
+        int rows = in.readInt();
+        if (rows < 0 || rows > MAX_ROWS) {
+            throw new IOException("잘못된 행 수 입니다. rows=" + rows);
+        }
+
+        // memberId
+        byte[] presence = readBitmap(in, rows);
+        Long[] memberIds = new Long[rows];
+        for (int i = 0; i < rows; i++) {
+            long value = in.readLong();
+            memberIds[i] = isSet(presence, i) ? value : null;
+        }
+
+        // username
+        presence = readBitmap(in, rows);
+        int[] lengths = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            lengths[i] = in.readInt();
+            if (!isSet(presence, i) && lengths[i] != 0) {
+                throw new IOException("null 회원명의 길이는 0 이어야 합니다. row=" + i + ", length=" + lengths[i]);
+            }
+        }
+        String[] usernames = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            if (isSet(presence, i)) {
+                usernames[i] = readString(in, lengths[i]);
+            }
+        }
+
+        // age
+        int[] ages = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            ages[i] = in.readInt();
+        }
+
+        // teamId
+        presence = readBitmap(in, rows);
+        Long[] teamIds = new Long[rows];
+        for (int i = 0; i < rows; i++) {
+            long value = in.readLong();
+            teamIds[i] = isSet(presence, i) ? value : null;
+        }
+
+        // teamName
+        int dictionarySize = in.readInt();
+        if (dictionarySize < 0 || dictionarySize > rows) {
+            throw new IOException("잘못된 팀 이름 사전 크기 입니다. size=" + dictionarySize);
+        }
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readString(in, in.readInt());
+        }
+
+        List<MemberTeamDto> members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int code = in.readInt();
+            if (code < -1 || code >= dictionarySize) {
+                throw new IOException("잘못된 팀 이름 사전 번호 입니다. row=" + i + ", code=" + code);
+            }
+            String teamName = code >= 0 ? dictionary[code] : null;
+            members.add(new MemberTeamDto(memberIds[i], usernames[i], ages[i], teamIds[i], teamName));
+        }
+        return members;
+    }
+
+    private static int bitmapSize(int rows) {
+        return (rows + 7) / 8;
+    }
+
+    private static void set(byte[] bitmap, int row) {
+        bitmap[row >> 3] |= (byte) (1 << (row & 7));
+    }
+
+    private static boolean isSet(byte[] bitmap, int row) {
+        return (bitmap[row >> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private static byte[] readBitmap(DataInputStream in, int rows) throws IOException {
+        byte[] bitmap = new byte[bitmapSize(rows)];
+        in.readFully(bitmap);
+        return bitmap;
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("잘못된 문자열 길이 입니다. length=" + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.jrock.querydsl.web;
+
+import com.jrock.querydsl.dto.MemberTeamDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Accept: application/vnd.jrock.member-columns 로 요청하면 List<MemberTeamDto> 를 MemberColumnarCodec 형식으로 응답한다. (/v1/members)
+ * 클라이언트(RestTemplate 등)에 등록하면 같은 형식을 List<MemberTeamDto> 로 읽을 수 있다.
+ */
+public class MemberColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    public static final MediaType MEMBER_COLUMNS = new MediaType("application", "vnd.jrock.member-columns");
+
+    public MemberColumnarHttpMessageConverter() {
+        super(MEMBER_COLUMNS);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(mediaType) && isMemberTeamList(type);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && supports(clazz) && (type == null || isMemberTeamList(type));
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> members, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MemberColumnarCodec.encode(members, outputMessage.getBody());
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return MemberColumnarCodec.decode(inputMessage.getBody());
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        return MemberColumnarCodec.decode(inputMessage.getBody());
+    }
+
+    private boolean isMemberTeamList(Type type) {
+        ResolvableType element = ResolvableType.forType(type).as(List.class).getGeneric(0);
+        return MemberTeamDto.class.equals(element.resolve());
+    }
+}
@@ -0,0 +1,67 @@
+package com.jrock.querydsl.web;
+
+import com.jrock.querydsl.dto.MemberTeamDto;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Accept: application/vnd.jrock.slim-page 로 요청하면 Page<MemberTeamDto> 를 SlimPageJsonWriter 로 응답한다.
+ * (/v2/members, /v3/members)
+ *
+ * 미디어 타입에 +json 을 붙이지 않는다. application/*+json 은 Jackson 컨버터가 먼저 처리하기 때문이다.
+ */
+public class SlimPageHttpMessageConverter extends AbstractGenericHttpMessageConverter<Page<MemberTeamDto>> {
+
+    public static final String SLIM_PAGE_VALUE = "application/vnd.jrock.slim-page";
+    public static final MediaType SLIM_PAGE = new MediaType("application", "vnd.jrock.slim-page", StandardCharsets.UTF_8);
+
+    public SlimPageHttpMessageConverter() {
+        super(SLIM_PAGE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType) || !supports(clazz)) {
+            return false;
+        }
+        if (type == null) {
+            return true;
+        }
+        ResolvableType element = ResolvableType.forType(type).as(Page.class).getGeneric(0);
+        return MemberTeamDto.class.equals(element.resolve());
+    }
+
+    @Override
+    protected void writeInternal(Page<MemberTeamDto> page, Type type, HttpOutputMessage outputMessage) throws IOException {
+        SlimPageJsonWriter.write(page, outputMessage.getBody());
+    }
+
+    @Override
+    public Page<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("읽기는 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    protected Page<MemberTeamDto> readInternal(Class<? extends Page<MemberTeamDto>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("읽기는 지원하지 않습니다.", inputMessage);
+    }
+}
@@ -0,0 +1,180 @@
+package com.jrock.querydsl.web;
+
+import com.jrock.querydsl.dto.MemberTeamDto;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Page<MemberTeamDto> 를 간단한 JSON 으로 바로 출력 스트림에 쓴다.
+ *
+ * {"content":[{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"}, ...],
+ *  "page":0,"size":20,"totalElements":100,"totalPages":5}
+ *
+ *   - PageImpl 을 Jackson 으로 직렬화하면 pageable, sort 등 매 응답마다 같은 메타데이터가 붙고 리플렉션으로 getter 를 호출한다.
+ *   - 필드를 직접 UTF-8 바이트로 쓰고, 쓰레드별로 재사용하는 버퍼가 차면 출력 스트림으로 내보낸다.
+ *     (응답 전체를 메모리에 만들지 않는다, 문자열/숫자 변환에 임시 객체를 만들지 않는다)
+ */
+public final class SlimPageJsonWriter {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_CHAR_BYTES = 6; // 제어문자 이스케이프 (\\u001f)
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final byte[] buffer;
+    private final OutputStream out;
+    private int position;
+
+    private SlimPageJsonWriter(byte[] buffer, OutputStream out) {
+        this.buffer = buffer;
+        this.out = out;
+    }
+
+    public static void write(Page<MemberTeamDto> page, OutputStream out) throws IOException {
+        SlimPageJsonWriter writer = new SlimPageJsonWriter(BUFFERS.get(), out);
+        writer.writePage(page);
+        writer.flush();
+    }
+
+    private void writePage(Page<MemberTeamDto> page) throws IOException {
+        ascii("{\"content\":[");
+        List<MemberTeamDto> content = page.getContent();
+        for (int i = 0; i < content.size(); i++) {
+            if (i > 0) {
+                ascii(",");
+            }
+            writeMember(content.get(i));
+        }
+        ascii("],\"page\":");
+        number(page.getNumber());
+        ascii(",\"size\":");
+        number(page.getSize());
+        ascii(",\"totalElements\":");
+        number(page.getTotalElements());
+        ascii(",\"totalPages\":");
+        number(page.getTotalPages());
+        ascii("}");
+    }
+
+    private void writeMember(MemberTeamDto dto) throws IOException {
+        ascii("{\"memberId\":");
+        number(dto.getMemberId());
+        ascii(",\"username\":");
+        string(dto.getUsername());
+        ascii(",\"age\":");
+        number(dto.getAge());
+        ascii(",\"teamId\":");
+        number(dto.getTeamId());
+        ascii(",\"teamName\":");
+        string(dto.getTeamName());
+        ascii("}");
+    }
+
+    /**
+     * 구분자, 필드명 등 ASCII 상수
+     */
+    private void ascii(String value) throws IOException {
+        int length = value.length();
+        require(length);
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void number(Long value) throws IOException {
+        if (value == null) {
+            ascii("null");
+        } else {
+            number(value.longValue());
+        }
+    }
+
+    private void number(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            ascii(Long.toString(value));
+            return;
+        }
+
+        require(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null) {
+            ascii("null");
+            return;
+        }
+
+        require(1);
+        buffer[position++] = '"';
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            require(MAX_CHAR_BYTES);
+            char c = value.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20) {
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xf];
+            } else if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xc0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // 짝이 맞지 않는 surrogate (String.getBytes(UTF_8) 와 같음)
+            } else {
+                buffer[position++] = (byte) (0xe0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        require(1);
+        buffer[position++] = '"';
+    }
+
+    private void require(int bytes) throws IOException {
+        if (position + bytes > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jrock.querydsl.web;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * 기본 컨버터 뒤에 추가한다. Accept 헤더가 없거나 모든 타입을 허용하면 지금처럼 Jackson(application/json) 으로 응답한다.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new SlimPageHttpMessageConverter());
+        converters.add(new MemberColumnarHttpMessageConverter());
+    }
+}
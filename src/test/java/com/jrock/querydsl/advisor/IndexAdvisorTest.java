@@ -0,0 +1,95 @@
+package com.jrock.querydsl.advisor;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.repository.MemberSearchShape;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인덱스 DDL 을 실행하므로 트랜잭션 없이 실행한다.
+ */
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void noFullScanWithEntityIndexes() throws Exception {
+        // none(조건 없음)은 전체 조회이므로 제외
+        for (int mask = 1; mask < MemberSearchShape.COUNT; mask++) {
+            ShapeReport report = indexAdvisor.explain(MemberSearchShape.of(mask));
+
+            assertThat(report.getFullScans())
+                    .as("%s%n%s%n%s", report.getShape(), report.getContentPlan(), report.getCountPlan())
+                    .isEmpty();
+            assertThat(report.getSuggestedIndexes()).isEmpty();
+        }
+    }
+
+    @Test
+    public void detectFullScanAndSuggest() throws Exception {
+        MemberSearchShape shape = MemberSearchShape.parse("ageGoe+ageLoe");
+        jdbcTemplate.execute("drop index if exists idx_member_age");
+
+        try {
+            ShapeReport report = indexAdvisor.explain(shape);
+
+            assertThat(report.getFullScans()).contains("PUBLIC.MEMBER.tableScan");
+            assertThat(report.getSuggestedIndexes())
+                    .containsExactly("create index if not exists idx_member_age on member (age)");
+        } finally {
+            jdbcTemplate.execute("create index if not exists idx_member_age on member (age)");
+        }
+
+        assertThat(indexAdvisor.explain(shape).hasFullScan()).isFalse();
+    }
+
+    @Test
+    public void parsePlan() throws Exception {
+        String plan = "SELECT COUNT(MEMBER0_.MEMBER_ID) FROM PUBLIC.TEAM TEAM1_ /* PUBLIC.IDX_TEAM_NAME: NAME = ?1 */ "
+                + "INNER JOIN PUBLIC.MEMBER MEMBER0_ /* PUBLIC.IDX_MEMBER_TEAM_AGE: TEAM_ID = TEAM1_.TEAM_ID */ ON 1=1 "
+                + "LEFT OUTER JOIN PUBLIC.HELLO H /* PUBLIC.HELLO.tableScan */ ON 1=1 "
+                + "INNER JOIN PUBLIC.ORDERS O /* PUBLIC.PRIMARY_KEY_8 */ ON 1=1";
+
+        assertThat(IndexAdvisor.fullScans(plan)).containsExactly("PUBLIC.HELLO.tableScan", "PUBLIC.PRIMARY_KEY_8");
+    }
+
+    @Test
+    public void suggestCompositeForTeamAndAge() throws Exception {
+        assertThat(IndexAdvisor.suggest(MemberSearchShape.parse("teamName+ageGoe"))).containsExactly(
+                "create index if not exists idx_team_name on team (name)",
+                "create index if not exists idx_member_team_age on member (team_id, age)");
+    }
+
+    @Test
+    public void explainUsernameMatch() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member");
+        condition.setUsernameMatch(UsernameMatch.CONTAINS);
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+
+        assertThat(shape.toString()).isEqualTo("usernameContains");
+        assertThat(MemberSearchShape.parse("usernameContains")).isSameAs(shape);
+        assertThat(shape).isNotSameAs(MemberSearchShape.parse("username"));
+
+        // LIKE '%x%' 는 username 인덱스로 찾을 수 없다.
+        ShapeReport report = indexAdvisor.explain(shape);
+        assertThat(report.getContentPlan()).containsIgnoringCase("like");
+        assertThat(report.getFullScans()).isNotEmpty();
+        assertThat(report.getSuggestedIndexes()).isEmpty();
+
+        assertThat(IndexAdvisor.suggest(MemberSearchShape.parse("usernamePrefix+ageGoe")))
+                .containsExactly("create index if not exists idx_member_username on member (username)");
+        assertThat(IndexAdvisor.suggest(MemberSearchShape.parse("usernameIgnoreCase+ageGoe")))
+                .containsExactly("create index if not exists idx_member_age on member (age)");
+    }
+}
@@ -0,0 +1,132 @@
+package com.jrock.querydsl.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.web.MemberColumnarCodec;
+import com.jrock.querydsl.web.MemberColumnarHttpMessageConverter;
+import com.jrock.querydsl.web.SlimPageHttpMessageConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Accept 헤더에 따른 응답 형식 (JSON, slim page, 컬럼 바이너리, NDJSON 스트리밍)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerContentTypeTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("팀B");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("회원 \"팀없음\"", 5));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void defaultIsJson() throws Exception {
+        mockMvc.perform(get("/v1/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/v3/members"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void columnarMatchesJson() throws Exception {
+        byte[] json = mockMvc.perform(get("/v1/members").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] binary = mockMvc.perform(get("/v1/members").accept(MemberColumnarHttpMessageConverter.MEMBER_COLUMNS))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberColumnarHttpMessageConverter.MEMBER_COLUMNS))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // MemberTeamDto 는 기본 생성자가 없으므로 JSON 트리로 비교한다.
+        JsonNode fromJson = objectMapper.readTree(json);
+        List<MemberTeamDto> decoded = MemberColumnarCodec.decode(new ByteArrayInputStream(binary));
+        JsonNode fromBinary = objectMapper.readTree(objectMapper.writeValueAsBytes(decoded));
+
+        assertThat(fromJson).hasSize(11);
+        assertThat(fromBinary).isEqualTo(fromJson);
+    }
+
+    @Test
+    public void slimPage() throws Exception {
+        JsonNode page = objectMapper.readTree(mockMvc.perform(get("/v3/members")
+                        .param("page", "1").param("size", "3")
+                        .accept(SlimPageHttpMessageConverter.SLIM_PAGE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SlimPageHttpMessageConverter.SLIM_PAGE))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        JsonNode pageImpl = objectMapper.readTree(mockMvc.perform(get("/v3/members")
+                        .param("page", "1").param("size", "3"))
+                .andReturn().getResponse().getContentAsByteArray());
+
+        assertThat(page.get("content")).isEqualTo(pageImpl.get("content"));
+        assertThat(page.get("totalElements")).isEqualTo(pageImpl.get("totalElements"));
+        assertThat(page.get("totalPages")).isEqualTo(pageImpl.get("totalPages"));
+        assertThat(page.get("page").asInt()).isEqualTo(1);
+        assertThat(page.has("pageable")).isFalse();
+    }
+
+    @Test
+    public void streamNdjson() throws Exception {
+        String body = mockMvc.perform(get("/members/stream").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // 한 줄에 JSON 객체 하나, 마지막 줄도 줄바꿈으로 끝난다.
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        List<String> usernames = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.isObject()).isTrue();
+            assertThat(row.get("teamName").asText()).isEqualTo("teamA");
+            usernames.add(row.get("username").asText());
+        }
+        assertThat(usernames).containsExactly("member0", "member2", "member4", "member6", "member8");
+    }
+}
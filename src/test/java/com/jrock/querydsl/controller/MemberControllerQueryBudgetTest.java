@@ -0,0 +1,111 @@
+package com.jrock.querydsl.controller;
+
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.sql.QueryBudget;
+import com.jrock.querydsl.sql.QueryBudgetExtension;
+import com.jrock.querydsl.sql.SqlStatementCounter;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * MemberController 엔드포인트별 SQL 예산
+ * 조회 API 가 LAZY 연관관계를 건드려서 SQL 이 늘어나면(N+1) 실패한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@ExtendWith(QueryBudgetExtension.class)
+class MemberControllerQueryBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @QueryBudget(1)
+    public void v1() throws Exception {
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(2)
+    public void v2() throws Exception {
+        mockMvc.perform(get("/v2/members").param("page", "0").param("size", "3"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(2)
+    public void v3() throws Exception {
+        mockMvc.perform(get("/v3/members").param("page", "0").param("size", "3"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @QueryBudget(1)
+    public void v4() throws Exception {
+        mockMvc.perform(get("/v4/members").param("sort", "age").param("size", "3"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * QuerydslBasicTest.fetchJoinNo 와 같은 상황: 회원 목록 조회 후 LAZY 팀을 하나씩 조회
+     * 팀이 2차 캐시에서 나오지 않도록 캐시를 무시한다.
+     */
+    @Test
+    public void detectNPlusOne() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("other" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+        em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("lazy team")) {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            for (Member member : members) {
+                member.getTeam().getName();
+            }
+
+            // 팀 5개를 하나씩 조회
+            assertThat(scope.getTotal()).isEqualTo(6);
+            assertThat(scope.getNPlusOneSuspects(3)).hasSize(1);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.jrock.querydsl.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 메모리 DB 3개 (primary, replica1, replica2) 로 라우팅을 확인한다.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica1;
+    private DriverManagerDataSource replica2;
+    private ReplicaSet replicaSet;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void before() {
+        primary = node("primary");
+        replica1 = node("replica1");
+        replica2 = node("replica2");
+        replicaSet = new ReplicaSet(List.of(replica1, replica2), 1);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replicaSet));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() throws Exception {
+        for (String name : List.of("primary", "replica1", "replica2")) {
+            new JdbcTemplate(new DriverManagerDataSource(url(name), "sa", "")).execute("drop table node");
+        }
+        replicaSet.close();
+    }
+
+    @Test
+    public void routeReadOnlyToReplicas() throws Exception {
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(readOnly.execute(status -> currentNode()));
+        }
+
+        // 라운드로빈
+        assertThat(reads).containsExactly("replica1", "replica2", "replica1", "replica2");
+        assertThat(readWrite.execute(status -> currentNode())).isEqualTo("primary");
+        assertThat(currentNode()).isEqualTo("primary"); // 트랜잭션 없음
+    }
+
+    @Test
+    public void skipUnhealthyReplica() throws Exception {
+        replica1.setUrl(broken("replica1"));
+        replicaSet.checkHealth();
+
+        assertThat(replicaSet.getReplicas()).extracting("healthy").containsExactly(false, true);
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("replica2");
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("replica2");
+    }
+
+    @Test
+    public void tryNextReplicaWhenConnectionFails() throws Exception {
+        replica1.setUrl(broken("replica1"));
+
+        // 상태 확인 전에 커넥션을 얻지 못하면 primary 가 아니라 다음 복제본으로 조회한다.
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("replica2");
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("replica2");
+        assertThat(replicaSet.getReplicas()).extracting("healthy").containsExactly(false, true);
+    }
+
+    @Test
+    public void fallbackToPrimary() throws Exception {
+        replica1.setUrl(broken("replica1"));
+        replica2.setUrl(broken("replica2"));
+
+        // 상태 확인 전이라도 커넥션을 얻지 못한 복제본은 제외하고 primary 로 조회한다.
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("primary");
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("primary");
+        assertThat(replicaSet.getReplicas()).extracting("healthy").containsExactly(false, false);
+
+        // 복구되면 다음 상태 확인 때 다시 사용한다.
+        replica1.setUrl(url("replica1"));
+        replicaSet.checkHealth();
+        assertThat(readOnly.execute(status -> currentNode())).isEqualTo("replica1");
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private DriverManagerDataSource node(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url(name), "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("create table node (name varchar(20))");
+        template.update("insert into node values (?)", name);
+        return dataSource;
+    }
+
+    private String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    // 접속할 때마다 없는 스크립트를 실행하므로 커넥션을 얻을 수 없다.
+    private String broken(String name) {
+        return url(name) + ";INIT=runscript from 'classpath:missing.sql'";
+    }
+}
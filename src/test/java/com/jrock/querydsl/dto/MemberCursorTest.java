@@ -0,0 +1,42 @@
+package com.jrock.querydsl.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberCursorTest {
+
+    @Test
+    public void encodeDecode() throws Exception {
+        MemberCursor cursor = MemberCursor.after(MemberCursor.SortKey.AGE, new MemberTeamDto(7L, "member7", 30, null, null));
+
+        MemberCursor decoded = MemberCursor.decode(cursor.encode(), MemberCursor.SortKey.ID);
+        assertThat(decoded.getSortKey()).isEqualTo(MemberCursor.SortKey.AGE);
+        assertThat(decoded.getLastMemberId()).isEqualTo(7L);
+        assertThat(decoded.getLastAge()).isEqualTo(30);
+    }
+
+    @Test
+    public void rejectInvalidCursor() throws Exception {
+        assertThatThrownBy(() -> MemberCursor.decode(encode("ID:1:2"), MemberCursor.SortKey.ID))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("AGE:30:7:9"), MemberCursor.SortKey.ID))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("AGE:30"), MemberCursor.SortKey.ID))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("NAME:1"), MemberCursor.SortKey.ID))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode("!!!", MemberCursor.SortKey.ID))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.SortKey.from("name"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,5 +1,6 @@
 package com.jrock.querydsl.entity;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
@@ -54,5 +55,89 @@ class MemberTest {
         }
     }
 
+    /**
+     * 회원 추가, 팀 이동은 team.members 를 로딩하지 않는다.
+     */
+    @Test
+    public void changeTeamDoesNotInitializeMembers() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        Team findA = em.find(Team.class, teamA.getId());
+        Team findB = em.find(Team.class, teamB.getId());
+        Member findMember = em.find(Member.class, member1.getId());
+
+        findMember.changeTeam(findB);
+        Member member3 = new Member("member3", 30, findA);
+        em.persist(member3);
+
+        assertFalse(Hibernate.isInitialized(findA.getMembers()));
+        assertFalse(Hibernate.isInitialized(findB.getMembers()));
+
+        // EXTRA: size() 는 count 쿼리로 확인한다. (flush 후 DB 기준)
+        em.flush();
+        assertEquals(2, findA.getMembers().size());
+        assertEquals(1, findB.getMembers().size());
+        assertFalse(Hibernate.isInitialized(findA.getMembers()));
+    }
+
+    /**
+     * 이미 로딩된 컬렉션은 양쪽 모두 맞춘다.
+     */
+    @Test
+    public void changeTeamKeepsLoadedMembers() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        Team findA = em.find(Team.class, teamA.getId());
+        Team findB = em.find(Team.class, teamB.getId());
+        Hibernate.initialize(findA.getMembers());
+        Hibernate.initialize(findB.getMembers());
+
+        Member findMember = em.find(Member.class, member1.getId());
+        findMember.changeTeam(findB);
+
+        assertTrue(findA.getMembers().isEmpty());
+        assertEquals(List.of(findMember), findB.getMembers());
+    }
+
+    /**
+     * 새 팀이 프록시여도 추가한다. (flush 전에 컬렉션을 로딩해도 보인다)
+     */
+    @Test
+    public void changeTeamToProxy() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        Member findMember = em.find(Member.class, member1.getId());
+        Team referenceB = em.getReference(Team.class, teamB.getId());
+        assertFalse(Hibernate.isInitialized(referenceB));
+
+        findMember.changeTeam(referenceB);
+
+        assertFalse(Hibernate.isInitialized(referenceB.getMembers()));
+        Hibernate.initialize(referenceB.getMembers());
+        assertEquals(List.of(findMember), referenceB.getMembers());
+    }
+
 
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.jrock.querydsl.entity;
+
+import com.jrock.querydsl.repository.MemberRepository;
+import com.jrock.querydsl.repository.TeamRepository;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 커밋된 데이터만 들어가므로 @Transactional 롤백을 사용하지 않고, 테스트 후 직접 지운다.
+ * 트랜잭션(영속성 컨텍스트)이 다르면 1차 캐시가 아니라 2차 캐시에서 가져와야 한다.
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void findByIdFromSecondLevelCache() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long memberId = tx.execute(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            Member member = new Member("member1", 10, team);
+            em.persist(member);
+            return member.getId();
+        });
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        tx.executeWithoutResult(status -> memberRepository.findById(memberId).get().getTeam().getName());
+        tx.executeWithoutResult(status -> memberRepository.findById(memberId).get().getTeam().getName());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void teamByNameFromQueryCache() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> em.persist(new Team("teamB")));
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        teamRepository.findFirstByNameOrderByIdAsc("teamB");
+        statistics.clear();
+
+        assertThat(teamRepository.findFirstByNameOrderByIdAsc("teamB")).isPresent();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+    }
+
+    /**
+     * 연관관계 주인(member.team)만 바꿔도 이전 팀의 members 컬렉션 캐시가 무효화 되어야 한다. (auto_evict_collection_cache)
+     */
+    @Test
+    public void evictTeamMembersCacheWhenMemberMoves() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member = new Member("member1", 10, teamA);
+            em.persist(member);
+            return new Long[]{teamA.getId(), teamB.getId(), member.getId()};
+        });
+
+        // teamA.members 를 컬렉션 캐시에 올린다.
+        tx.executeWithoutResult(status -> Hibernate.initialize(em.find(Team.class, ids[0]).getMembers()));
+
+        tx.executeWithoutResult(status -> em.find(Member.class, ids[2]).setTeam(em.getReference(Team.class, ids[1])));
+
+        Integer size = tx.execute(status -> {
+            Team teamA = em.find(Team.class, ids[0]);
+            Hibernate.initialize(teamA.getMembers());
+            return teamA.getMembers().size();
+        });
+        assertThat(size).isEqualTo(0);
+    }
+}
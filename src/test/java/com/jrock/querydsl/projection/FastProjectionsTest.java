@@ -0,0 +1,61 @@
+package com.jrock.querydsl.projection;
+
+import com.jrock.querydsl.dto.MemberDto;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.dto.UserDto;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.junit.jupiter.api.Test;
+
+import static com.jrock.querydsl.entity.QMember.member;
+import static com.jrock.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FastProjectionsTest {
+
+    @Test
+    public void bean() throws Exception {
+        FactoryExpression<MemberDto> projection = FastProjections.bean(MemberDto.class, member.username, member.age);
+
+        MemberDto result = projection.newInstance("member1", 10);
+
+        assertThat(result).isEqualTo(Projections.bean(MemberDto.class, member.username, member.age).newInstance("member1", 10));
+    }
+
+    @Test
+    public void fieldsWithAlias() throws Exception {
+        FactoryExpression<UserDto> projection = FastProjections.fields(UserDto.class, member.username.as("name"), member.age);
+
+        UserDto result = projection.newInstance("member1", 10);
+
+        assertThat(result).isEqualTo(new UserDto("member1", 10));
+    }
+
+    @Test
+    public void constructor() throws Exception {
+        FactoryExpression<MemberTeamDto> projection = FastProjections.constructor(MemberTeamDto.class,
+                member.id, member.username, member.age, team.id, team.name);
+
+        MemberTeamDto result = projection.newInstance(1L, "member1", 10, null, null);
+
+        assertThat(result).isEqualTo(new MemberTeamDto(1L, "member1", 10, null, null));
+        assertThat(projection.getArgs()).hasSize(5);
+    }
+
+    @Test
+    public void nullValueIsSkipped() throws Exception {
+        FactoryExpression<MemberDto> projection = FastProjections.bean(MemberDto.class, member.username, member.age);
+
+        MemberDto result = projection.newInstance(null, null);
+
+        assertThat(result.getUsername()).isNull();
+        assertThat(result.getAge()).isEqualTo(0);
+    }
+
+    @Test
+    public void unknownProperty() throws Exception {
+        assertThatThrownBy(() -> FastProjections.bean(MemberDto.class, member.username.as("name"), member.age))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
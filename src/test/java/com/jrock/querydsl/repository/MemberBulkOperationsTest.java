@@ -0,0 +1,123 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.BulkProgress;
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.jrock.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBulkOperationsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberBulkOperations bulkOperations;
+
+    List<Member> members = new ArrayList<>();
+    Team teamA;
+
+    @BeforeEach
+    public void before() {
+        teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            Member member = new Member("member" + i, i * 10, teamA);
+            em.persist(member);
+            members.add(member);
+        }
+    }
+
+    @Test
+    public void updateInChunks() throws Exception {
+        List<BulkProgress> reported = new ArrayList<>();
+
+        // flush 하지 않은 변경도 반영된 상태에서 실행한다.
+        members.get(0).setAge(100);
+
+        BulkProgress progress = bulkOperations.update(member.age.lt(40),
+                set -> set.set(member.age, member.age.add(1)), 0, 2, reported::add);
+
+        assertThat(progress.isDone()).isTrue();
+        assertThat(progress.getChunks()).isEqualTo(3);
+        assertThat(progress.getAffectedRows()).isEqualTo(2);
+        assertThat(progress.getLastId()).isEqualTo(members.get(4).getId());
+        assertThat(reported).extracting("affectedRows").containsExactly(1L, 2L, 2L);
+
+        // 영속성 컨텍스트를 비우므로 다시 조회하면 바뀐 값이 보인다.
+        assertThat(em.contains(members.get(1))).isFalse();
+        assertThat(em.find(Member.class, members.get(0).getId()).getAge()).isEqualTo(100);
+        assertThat(em.find(Member.class, members.get(1).getId()).getAge()).isEqualTo(21);
+        assertThat(em.find(Member.class, members.get(2).getId()).getAge()).isEqualTo(31);
+    }
+
+    @Test
+    public void deleteResumesAfterId() throws Exception {
+        BulkProgress progress = bulkOperations.delete(member.age.gt(0), members.get(2).getId(), 1, p -> {});
+
+        assertThat(progress.getChunks()).isEqualTo(2);
+        assertThat(progress.getAffectedRows()).isEqualTo(2);
+        assertThat(em.createQuery("select m.username from Member m order by m.id", String.class).getResultList())
+                .containsExactly("member1", "member2", "member3");
+    }
+
+    @Test
+    public void failureReportsProgress() throws Exception {
+        assertThatThrownBy(() -> bulkOperations.update(member.age.gt(0),
+                set -> set.set(member.age, member.age.add(1)), 0, 2, progress -> {
+                    if (progress.getChunks() == 2) {
+                        throw new IllegalStateException("중단");
+                    }
+                }))
+                .isInstanceOf(MemberBulkOperations.BulkOperationException.class)
+                .satisfies(e -> assertThat(((MemberBulkOperations.BulkOperationException) e).getProgress().getLastId())
+                        .isEqualTo(members.get(3).getId()));
+    }
+
+    @Test
+    public void reassignTeam() throws Exception {
+        Team teamB = new Team("teamB");
+        em.persist(teamB);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        long moved = bulkOperations.reassignTeam(teamA.getId(), teamB.getId(), condition);
+
+        assertThat(moved).isEqualTo(3);
+        assertThat(em.find(Team.class, teamA.getId()).getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2");
+        assertThat(em.find(Team.class, teamB.getId()).getMembers()).extracting("username")
+                .containsExactlyInAnyOrder("member3", "member4", "member5");
+
+        condition.setTeamName("teamA");
+        assertThatThrownBy(() -> bulkOperations.reassignTeam(teamA.getId(), teamB.getId(), condition))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void mergeTeam() throws Exception {
+        Team teamB = new Team("teamB");
+        em.persist(teamB);
+        em.persist(new Member("member6", 60, teamB));
+
+        long moved = bulkOperations.mergeTeam(teamA.getId(), teamB.getId());
+
+        assertThat(moved).isEqualTo(5);
+        assertThat(em.find(Team.class, teamA.getId())).isNull();
+        assertThat(em.find(Team.class, teamB.getId()).getMembers()).hasSize(6);
+    }
+}
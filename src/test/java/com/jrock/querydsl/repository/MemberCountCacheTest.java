@@ -0,0 +1,90 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    @Test
+    public void cacheByNormalizedCondition() throws Exception {
+        MemberCountCache cache = new MemberCountCache(TransactionOperations.withoutTransaction(), true, 10, 60_000, 60_000);
+        AtomicLong calls = new AtomicLong();
+
+        MemberSearchCondition condition1 = new MemberSearchCondition();
+        condition1.setUsername("");
+        condition1.setAgeGoe(10);
+
+        MemberSearchCondition condition2 = new MemberSearchCondition();
+        condition2.setAgeGoe(10);
+
+        long count1 = cache.get(condition1, () -> calls.incrementAndGet() * 100);
+        long count2 = cache.get(condition2, () -> calls.incrementAndGet() * 100);
+
+        // 빈 문자열과 null 은 같은 검색조건
+        assertThat(count1).isEqualTo(100);
+        assertThat(count2).isEqualTo(100);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateOnMemberChange() throws Exception {
+        MemberCountCache cache = new MemberCountCache(TransactionOperations.withoutTransaction(), true, 10, 60_000, 60_000);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get(condition, () -> 1L);
+        cache.onEntityChange(EntityChangeEvent.bulk(Member.class));
+
+        assertThat(cache.get(condition, () -> 2L)).isEqualTo(2);
+    }
+
+    @Test
+    public void boundedSize() throws Exception {
+        MemberCountCache cache = new MemberCountCache(TransactionOperations.withoutTransaction(), true, 2, 60_000, 60_000);
+
+        for (int age = 0; age < 5; age++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(age);
+            cache.get(condition, () -> 1L);
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void staleWhileRevalidate() throws Exception {
+        AtomicInteger transactions = new AtomicInteger();
+        TransactionOperations refreshTransaction = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                transactions.incrementAndGet();
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+        MemberCountCache cache = new MemberCountCache(refreshTransaction, true, 10, 0, 60_000);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        cache.get(condition, () -> 1L);
+
+        // ttl 이 지났지만 stale 구간이므로 이전 값을 돌려주고, 백그라운드에서 갱신
+        assertThat(cache.get(condition, () -> 2L)).isEqualTo(1);
+
+        // 갱신은 트랜잭션 안에서 실행되고, 이후에는 갱신된 값을 돌려준다.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get(condition, () -> 2L) != 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.get(condition, () -> 2L)).isEqualTo(2);
+        assertThat(transactions.get()).isGreaterThanOrEqualTo(1);
+        cache.shutdown();
+    }
+}
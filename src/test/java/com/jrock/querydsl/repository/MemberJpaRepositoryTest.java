@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -93,4 +94,82 @@ class MemberJpaRepositoryTest {
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchCountTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+
+        MemberSearchCondition noTeam = new MemberSearchCondition();
+        noTeam.setAgeGoe(20);
+
+        MemberSearchCondition withTeam = new MemberSearchCondition();
+        withTeam.setAgeGoe(20);
+        withTeam.setTeamName("teamB");
+
+        // 팀이 없는 회원도 카운트 (조인 제거)
+        assertThat(memberJpaRepository.searchCount(noTeam)).isEqualTo(4);
+        assertThat(memberJpaRepository.searchCount(withTeam)).isEqualTo(2);
+        assertThat(memberJpaRepository.findMember(noTeam)).hasSize(4);
+        assertThat(memberJpaRepository.findMember(withTeam)).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+    }
+
+    @Test
+    public void saveAllTest() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("member" + i, i, teamA));
+        }
+
+        long saved = memberJpaRepository.saveAllAndDetach(members);
+
+        assertThat(saved).isEqualTo(250);
+        // 저장한 회원은 detach 되므로 1차 캐시에 남아있지 않다.
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(em.contains(members.get(249))).isFalse();
+        // 같은 트랜잭션의 다른 엔티티는 영속 상태를 유지한다. (clear 하지 않음)
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(memberJpaRepository.findAll()).hasSize(250);
+    }
+
+    @Test
+    public void streamSearchTest() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        // 나이가 id 와 반대 순서가 되도록 저장한다.
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, 100 - i * 10, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("member10", 50));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+
+        List<MemberTeamDto> streamed = new ArrayList<>();
+        // fetchSize 보다 결과가 많아도 모두 전달된다.
+        long count = memberJpaRepository.streamSearch(condition, 2, streamed::add);
+
+        assertThat(count).isEqualTo(7);
+        assertThat(streamed).extracting("username")
+                .containsExactly("member0", "member1", "member2", "member3", "member4", "member5", "member10");
+        assertThat(streamed).extracting("age").containsExactly(100, 90, 80, 70, 60, 50, 50);
+        assertThat(streamed).extracting("teamName")
+                .containsExactly("teamA", "teamB", "teamA", "teamB", "teamA", "teamB", null);
+    }
+}
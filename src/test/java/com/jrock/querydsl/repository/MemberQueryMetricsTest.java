@@ -0,0 +1,42 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberQueryMetricsTest {
+
+    @Test
+    public void tagByMethodShapeAndPhase() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryShapeRecorder recorder = new QueryShapeRecorder();
+        MemberQueryMetrics metrics = new MemberQueryMetrics(registry, recorder);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        metrics.content("MemberRepository.search", condition, () -> List.of("member3", "member4"));
+        metrics.content("MemberRepository.search", condition, () -> List.of("member4"));
+        metrics.count("MemberRepository.search", condition, () -> 2L);
+
+        Timer content = registry.get("member.query")
+                .tags("method", "MemberRepository.search", "shape", "teamName+ageGoe", "phase", "content")
+                .timer();
+        Timer count = registry.get("member.query")
+                .tags("method", "MemberRepository.search", "shape", "teamName+ageGoe", "phase", "count")
+                .timer();
+
+        assertThat(content.count()).isEqualTo(2);
+        assertThat(count.count()).isEqualTo(1);
+        // 검색 호출 2번 (카운트는 같은 호출의 일부이므로 세지 않는다)
+        assertThat(recorder.executions(MemberSearchShape.parse("teamName+ageGoe"))).isEqualTo(2);
+        assertThat(registry.get("member.query.rows").tag("shape", "teamName+ageGoe").summary().totalAmount())
+                .isEqualTo(3);
+    }
+}
@@ -0,0 +1,122 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.search.MemberBitmapIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * member.bitmap-index.enabled=true 일 때 페이징 카운트를 비트맵 색인에서 계산하는지 확인한다.
+ * 색인은 커밋된 데이터만 보이므로 @Transactional 롤백을 사용하지 않고, 테스트 후 직접 지운다.
+ */
+@SpringBootTest(properties = "member.bitmap-index.enabled=true")
+class MemberRepositoryBitmapIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberBitmapIndex bitmapIndex;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void countFromBitmapIndex() throws Exception {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, 10 + i * 5, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(20);
+
+        // 시작할 때 만든 색인에 커밋 이벤트가 반영될 때까지 기다린다.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(4).equals(bitmapIndex.count(condition)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bitmapIndex.count(condition)).isEqualTo(4);
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2).extracting("teamName").containsOnly("teamB");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        // 내용 쿼리만 실행하고 카운트 쿼리는 실행하지 않는다.
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void indexedCountNotLessThanContent() throws Exception {
+        Team teamB = new Team("teamB");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.persist(teamB);
+            for (int i = 0; i < 4; i++) {
+                em.persist(new Member("member" + i, 20 + i, teamB));
+            }
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(4).equals(bitmapIndex.count(condition)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bitmapIndex.count(condition)).isEqualTo(4);
+
+        // 변경 이벤트 없이 추가된 회원은 색인에 없다. (색인이 내용 쿼리보다 늦은 경우)
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)",
+                    1_000_000_000L + i, "late" + i, 30, teamB.getId());
+        }
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(1, 3));
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getTotalElements()).isEqualTo(6);
+    }
+}
@@ -1,7 +1,10 @@
 package com.jrock.querydsl.repository;
 
+import com.jrock.querydsl.dto.CursorPage;
+import com.jrock.querydsl.dto.MemberCursor;
 import com.jrock.querydsl.dto.MemberSearchCondition;
 import com.jrock.querydsl.dto.MemberTeamDto;
+import com.jrock.querydsl.dto.UsernameMatch;
 import com.jrock.querydsl.entity.Member;
 import com.jrock.querydsl.entity.Team;
 import org.junit.jupiter.api.Test;
@@ -69,6 +72,38 @@ class MemberRepositoryTest {
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
+    @Test
+    public void searchUsernameMatch() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("Kim", 10, teamA));
+        em.persist(new Member("kimchi", 20, teamA));
+        em.persist(new Member("seokim", 30, teamA));
+        em.persist(new Member("lee", 40, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("kim");
+
+        // 완전 일치 (기본)
+        assertThat(memberRepository.search(condition)).isEmpty();
+
+        condition.setUsernameIgnoreCase(true);
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("Kim");
+
+        condition.setUsernameMatch(UsernameMatch.PREFIX);
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("Kim", "kimchi");
+
+        condition.setUsernameMatch(UsernameMatch.CONTAINS);
+        condition.setUsernameIgnoreCase(false);
+        assertThat(memberRepository.search(condition)).extracting("username")
+                .containsExactlyInAnyOrder("kimchi", "seokim");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
     @Test
     public void searchPageSimple() throws Exception {
         Team teamA = new Team("teamA");
@@ -94,5 +129,45 @@ class MemberRepositoryTest {
 
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    public void searchByCursor() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 40, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 20, teamB);
+
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // member_id 순서
+        CursorPage<MemberTeamDto> first = memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.ID), 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberCursor next = MemberCursor.decode(first.getNextCursor(), MemberCursor.SortKey.ID);
+        CursorPage<MemberTeamDto> second = memberRepository.searchByCursor(condition, next, 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+
+        // (age, member_id) 순서, 같은 나이는 member_id 로 이어서 조회
+        CursorPage<MemberTeamDto> byAge = memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.AGE), 1);
+        assertThat(byAge.getContent()).extracting("username").containsExactly("member2");
+
+        MemberCursor ageCursor = MemberCursor.decode(byAge.getNextCursor(), MemberCursor.SortKey.ID);
+        CursorPage<MemberTeamDto> byAgeNext = memberRepository.searchByCursor(condition, ageCursor, 2);
+        assertThat(byAgeNext.getContent()).extracting("username").containsExactly("member4", "member3");
     }
-}
\ No newline at end of file
+}
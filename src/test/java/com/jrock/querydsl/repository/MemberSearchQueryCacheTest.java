@@ -0,0 +1,78 @@
+package com.jrock.querydsl.repository;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache queryTemplates;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    /**
+     * 16가지 모양 모두 Querydsl 동적 쿼리와 결과가 같아야 한다.
+     */
+    @Test
+    public void sameResultAsQuerydsl() throws Exception {
+        for (int mask = 0; mask < MemberSearchShape.COUNT; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((mask & 1) != 0) condition.setUsername("member3");
+            if ((mask & 2) != 0) condition.setTeamName("teamB");
+            if ((mask & 4) != 0) condition.setAgeGoe(20);
+            if ((mask & 8) != 0) condition.setAgeLoe(40);
+
+            assertThat(MemberSearchShape.of(condition).mask()).isEqualTo(mask);
+            assertThat(queryTemplates.search(condition))
+                    .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+            assertThat(queryTemplates.count(condition))
+                    .isEqualTo(memberJpaRepository.searchCount(condition));
+        }
+    }
+
+    @Test
+    public void countQueryJoinsTeamOnlyWhenNeeded() throws Exception {
+        MemberSearchShape ageOnly = MemberSearchShape.of(4);
+        MemberSearchShape teamAndAge = MemberSearchShape.of(2 | 4);
+
+        assertThat(queryTemplates.countQuery(ageOnly)).doesNotContain("join");
+        assertThat(queryTemplates.countQuery(teamAndAge)).contains("join m.team t");
+        assertThat(queryTemplates.contentQuery(teamAndAge)).isEqualTo(
+                "select m.id, m.username, m.age, t.id, t.name from Member m join m.team t"
+                        + " where t.name = :teamName and m.age >= :ageGoe");
+        // 팀 조건이 없으면 팀 없는 회원도 조회하도록 외부 조인한다.
+        assertThat(queryTemplates.contentQuery(ageOnly)).isEqualTo(
+                "select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t"
+                        + " where m.age >= :ageGoe");
+    }
+}
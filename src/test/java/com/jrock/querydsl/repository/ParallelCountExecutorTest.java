@@ -0,0 +1,126 @@
+package com.jrock.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelCountExecutorTest {
+
+    private final ParallelCountExecutor executor = new ParallelCountExecutor(
+            new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:parallelcount;DB_CLOSE_DELAY=-1", "sa", "")),
+            null, true, 1, 10);
+
+    @AfterEach
+    public void after() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void countRunsWithContent() throws Exception {
+        CountDownLatch countStarted = new CountDownLatch(1);
+
+        // 카운트가 시작되어야 내용 쿼리가 끝난다. 순서대로 실행하면 시간 초과로 실패
+        Page<String> page = executor.getPage(() -> {
+            await(countStarted);
+            return List.of("member1", "member2");
+        }, PageRequest.of(0, 2), () -> {
+            countStarted.countDown();
+            return 100;
+        });
+
+        assertThat(page.getContent()).containsExactly("member1", "member2");
+        assertThat(page.getTotalElements()).isEqualTo(100);
+    }
+
+    @Test
+    public void cancelCountWhenNotNeeded() throws Exception {
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        // 첫 페이지의 내용이 페이지 크기보다 작으면 카운트가 필요 없다. 카운트를 기다리지 않고 돌려준다.
+        Page<String> page = executor.getPage(() -> {
+            await(countStarted);
+            return List.of("member1");
+        }, PageRequest.of(0, 10), () -> blockUntilReleased(countStarted, release, interrupted));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+
+        // JDBC 실행 중일 수 있는 카운트 쓰레드는 인터럽트하지 않는다.
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(interrupted.get()).isFalse();
+    }
+
+    @Test
+    public void cancelCountWhenContentFails() throws Exception {
+        CountDownLatch countStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        assertThatThrownBy(() -> executor.getPage(() -> {
+            await(countStarted);
+            throw new IllegalStateException("content failed");
+        }, PageRequest.of(0, 10), () -> blockUntilReleased(countStarted, release, interrupted)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("content failed");
+
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(interrupted.get()).isFalse();
+    }
+
+    @Test
+    public void countSequentiallyWhenAllSlotsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        AtomicReference<String> innerCountThread = new AtomicReference<>();
+
+        // max-concurrent=1 이므로 바깥 카운트가 실행중이면 안쪽 카운트는 기다리지 않고 호출한 쓰레드에서 실행한다.
+        Page<String> outer = executor.getPage(() -> {
+            Page<String> inner = executor.getPage(() -> List.of("member1", "member2"), PageRequest.of(0, 2), () -> {
+                innerCountThread.set(Thread.currentThread().getName());
+                return 5;
+            });
+            assertThat(inner.getTotalElements()).isEqualTo(5);
+            release.countDown();
+            return List.of("member1", "member2");
+        }, PageRequest.of(0, 2), () -> {
+            await(release);
+            return 100;
+        });
+
+        assertThat(outer.getTotalElements()).isEqualTo(100);
+        assertThat(innerCountThread.get()).isEqualTo(caller);
+    }
+
+    private long blockUntilReleased(CountDownLatch started, CountDownLatch release, AtomicBoolean interrupted) {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            interrupted.set(true);
+        }
+        return 0;
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.jrock.querydsl.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntHashMapTest {
+
+    @Test
+    public void putGetRemove() throws Exception {
+        LongIntHashMap map = new LongIntHashMap();
+        map.put(1L, 10);
+        map.put(2L, 20);
+        map.put(1L, 11);
+
+        assertThat(map.get(1L)).isEqualTo(11);
+        assertThat(map.get(2L)).isEqualTo(20);
+        assertThat(map.get(3L)).isEqualTo(LongIntHashMap.MISSING);
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(1L)).isEqualTo(11);
+        assertThat(map.remove(1L)).isEqualTo(LongIntHashMap.MISSING);
+        assertThat(map.get(1L)).isEqualTo(LongIntHashMap.MISSING);
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    /**
+     * 지운 뒤에도 같은 칸을 거쳐 가는 다른 키를 찾을 수 있어야 한다. (HashMap 과 결과 비교)
+     */
+    @Test
+    public void sameAsHashMap() throws Exception {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed != null ? removed : LongIntHashMap.MISSING);
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 5_000; key++) {
+            Integer value = expected.get(key);
+            assertThat(map.get(key)).isEqualTo(value != null ? value : LongIntHashMap.MISSING);
+        }
+    }
+}
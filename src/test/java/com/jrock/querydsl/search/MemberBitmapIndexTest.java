@@ -0,0 +1,123 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberBitmapIndexTest {
+
+    private static final String[] MEMBER_PROPERTIES = {"age", "team", "username"};
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:bitmap;DB_CLOSE_DELAY=-1", "sa", ""));
+    private MemberBitmapIndex index;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate.execute("create table team (team_id bigint primary key, name varchar(255))");
+        jdbcTemplate.execute("create table member (member_id bigint primary key, username varchar(255), age int, team_id bigint)");
+        jdbcTemplate.update("insert into team values (1, 'teamA'), (2, 'teamB')");
+        jdbcTemplate.update("insert into member values (1, 'member1', 10, 1), (2, 'member2', 20, 1),"
+                + " (3, 'member3', 30, 2), (4, 'member4', 40, 2), (5, 'member5', 20, null)");
+
+        index = new MemberBitmapIndex(jdbcTemplate, true, 0);
+        index.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        index.shutdown();
+        jdbcTemplate.execute("drop table member");
+        jdbcTemplate.execute("drop table team");
+    }
+
+    @Test
+    public void count() throws Exception {
+        assertThat(index.count(condition(null, null, null))).isEqualTo(5);
+        assertThat(index.count(condition("teamB", null, null))).isEqualTo(2);
+        assertThat(index.count(condition(null, 20, 30))).isEqualTo(3);
+        assertThat(index.count(condition("teamB", 20, 35))).isEqualTo(1);
+        assertThat(index.count(condition("teamC", null, null))).isEqualTo(0);
+        assertThat(index.count(condition(null, 40, 20))).isEqualTo(0);
+
+        assertThat(index.ids(condition(null, 20, null))).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(index.ids(condition("teamA", null, 15))).containsExactly(1L);
+    }
+
+    @Test
+    public void usernameNotSupported() throws Exception {
+        MemberSearchCondition condition = condition(null, null, null);
+        condition.setUsername("member1");
+
+        assertThat(index.supports(condition)).isFalse();
+        assertThat(index.count(condition)).isNull();
+    }
+
+    @Test
+    public void applyChangeEvents() throws Exception {
+        Team teamA = new Team("teamA");
+        teamA.setId(1L);
+
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, 6L,
+                MEMBER_PROPERTIES, null, new Object[]{25, teamA, "member6"}));
+        // 이전 값 없이 팀과 나이가 바뀌어도 기억해 둔 위치에서 제거한다.
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 3L,
+                MEMBER_PROPERTIES, null, new Object[]{21, teamA, "member3"}));
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, Member.class, 1L,
+                MEMBER_PROPERTIES, null, null));
+
+        assertThat(index.ids(condition("teamA", null, null))).containsExactly(2L, 3L, 6L);
+        assertThat(index.count(condition("teamB", null, null))).isEqualTo(1);
+        assertThat(index.count(condition(null, 30, null))).isEqualTo(1);
+        assertThat(index.count(condition(null, null, null))).isEqualTo(5);
+    }
+
+    @Test
+    public void compactAfterManyDeletes() throws Exception {
+        Team teamB = new Team("teamB");
+        teamB.setId(2L);
+
+        for (long id = 100; id < 3100; id++) {
+            index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, id,
+                    MEMBER_PROPERTIES, null, new Object[]{(int) (id % 50), teamB, "member" + id}));
+        }
+        // 삭제된 행이 많아지면 행 번호를 다시 매긴다.
+        for (long id = 100; id < 3000; id++) {
+            index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, Member.class, id,
+                    MEMBER_PROPERTIES, null, null));
+        }
+
+        assertThat(index.count(condition(null, null, null))).isEqualTo(105);
+        assertThat(index.count(condition("teamB", null, null))).isEqualTo(102);
+        assertThat(index.ids(condition("teamB", 48, null))).containsExactly(3048L, 3049L, 3098L, 3099L);
+    }
+
+    @Test
+    public void bulkChangeRebuilds() throws Exception {
+        jdbcTemplate.update("update member set team_id = 2");
+        index.onEntityChange(EntityChangeEvent.bulk(Member.class));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!index.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(index.count(condition("teamB", null, null))).isEqualTo(5);
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,141 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.MemberSearchCondition;
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MemberSnapshotTest {
+
+    private static final String[] MEMBER_PROPERTIES = {"age", "team", "username"};
+    private static final String[] TEAM_PROPERTIES = {"members", "name"};
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:snapshot;DB_CLOSE_DELAY=-1", "sa", ""));
+    private MemberSnapshot snapshot;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate.execute("create table team (team_id bigint primary key, name varchar(255))");
+        jdbcTemplate.execute("create table member (member_id bigint primary key, username varchar(255), age int, team_id bigint)");
+        jdbcTemplate.update("insert into team values (1, 'teamA'), (2, 'teamB')");
+        jdbcTemplate.update("insert into member values (1, 'member1', 10, 1), (2, 'member2', 20, 1),"
+                + " (3, 'member3', 30, 2), (4, 'member4', 40, 2), (5, 'member5', 50, null)");
+
+        snapshot = new MemberSnapshot(jdbcTemplate, true, 0);
+        snapshot.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        snapshot.shutdown();
+        jdbcTemplate.execute("drop table member");
+        jdbcTemplate.execute("drop table team");
+    }
+
+    @Test
+    public void search() throws Exception {
+        assertThat(snapshot.isReady()).isTrue();
+        assertThat(snapshot.size()).isEqualTo(5);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(snapshot.search(condition)).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        assertThat(snapshot.search(condition)).extracting("username", "teamId", "teamName")
+                .containsExactly(tuple("member4", 2L, "teamB"));
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        assertThat(snapshot.search(condition)).isEmpty();
+
+        condition = new MemberSearchCondition();
+        condition.setUsername("MEMBER");
+        condition.setUsernameMatch(UsernameMatch.PREFIX);
+        condition.setUsernameIgnoreCase(true);
+        condition.setAgeGoe(30);
+        assertThat(snapshot.search(condition)).extracting("username")
+                .containsExactly("member3", "member4", "member5");
+    }
+
+    @Test
+    public void applyChangeEvents() throws Exception {
+        Team teamB = new Team("teamB");
+        teamB.setId(2L);
+
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, 6L,
+                MEMBER_PROPERTIES, null, new Object[]{60, teamB, "member6"}));
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 1L,
+                MEMBER_PROPERTIES, null, new Object[]{11, teamB, "member1"}));
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, Member.class, 3L,
+                MEMBER_PROPERTIES, null, null));
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Team.class, 2L,
+                TEAM_PROPERTIES, null, new Object[]{null, "teamZ"}));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamZ");
+        assertThat(snapshot.search(condition)).extracting("username", "age")
+                .containsExactly(
+                        tuple("member1", 11),
+                        tuple("member4", 40),
+                        tuple("member6", 60));
+        assertThat(snapshot.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void bulkChangeMarksStaleAndRebuilds() throws Exception {
+        jdbcTemplate.update("update member set age = age + 1");
+        snapshot.onEntityChange(EntityChangeEvent.bulk(Member.class));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!snapshot.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(51);
+        assertThat(snapshot.search(condition)).extracting("username").containsExactly("member5");
+    }
+
+    @Test
+    public void refreshRepairsOutOfOrderEvents() throws Exception {
+        Team teamA = new Team("teamA");
+        teamA.setId(1L);
+
+        // 나이를 11 -> 12 로 바꾼 두 트랜잭션의 이벤트가 거꾸로 도착했다.
+        jdbcTemplate.update("update member set age = 12 where member_id = 1");
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 1L,
+                MEMBER_PROPERTIES, null, new Object[]{12, teamA, "member1"}));
+        snapshot.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 1L,
+                MEMBER_PROPERTIES, null, new Object[]{11, teamA, "member1"}));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(12);
+        assertThat(snapshot.search(condition)).extracting("age").containsExactly(11);
+
+        // 다시 만드는 동안에도 사용할 수 있고, 끝나면 DB 와 같아진다.
+        snapshot.refresh();
+        assertThat(snapshot.isReady()).isTrue();
+        assertThat(snapshot.search(condition)).extracting("age").containsExactly(12);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        MemberSnapshot disabled = new MemberSnapshot(jdbcTemplate, false, 0);
+        assertThat(disabled.isReady()).isFalse();
+        assertThat(disabled.search(new MemberSearchCondition())).isNull();
+        disabled.shutdown();
+    }
+}
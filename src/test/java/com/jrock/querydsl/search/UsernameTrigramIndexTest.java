@@ -0,0 +1,117 @@
+package com.jrock.querydsl.search;
+
+import com.jrock.querydsl.dto.UsernameMatch;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.event.EntityChangeEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsernameTrigramIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:trigram;DB_CLOSE_DELAY=-1", "sa", ""));
+    private UsernameTrigramIndex index;
+
+    @BeforeEach
+    public void before() {
+        jdbcTemplate.execute("create table member (member_id bigint primary key, username varchar(255))");
+        jdbcTemplate.update("insert into member values (1, 'Kim'), (2, 'kimchi'), (3, 'seokim'), (4, 'lee'), (5, null)");
+
+        index = new UsernameTrigramIndex(jdbcTemplate, true, 0, 2);
+        index.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        index.shutdown();
+        jdbcTemplate.execute("drop table member");
+    }
+
+    @Test
+    public void search() throws Exception {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("kim", UsernameMatch.EXACT, false)).isEmpty();
+        assertThat(index.search("kim", UsernameMatch.EXACT, true)).containsExactly(1L);
+        assertThat(index.search("kim", UsernameMatch.PREFIX, false)).containsExactly(2L);
+        assertThat(index.search("KIM", UsernameMatch.PREFIX, true)).containsExactly(1L, 2L);
+        assertThat(index.search("kim", UsernameMatch.CONTAINS, false)).containsExactly(2L, 3L);
+        assertThat(index.search("imch", UsernameMatch.CONTAINS, false)).containsExactly(2L);
+        assertThat(index.search("xyz", UsernameMatch.CONTAINS, false)).isEmpty();
+    }
+
+    @Test
+    public void fallbackWhenNotUsable() throws Exception {
+        // 3글자 미만
+        assertThat(index.search("ki", UsernameMatch.CONTAINS, false)).isNull();
+        // 결과가 max-matches(2) 초과
+        assertThat(index.search("kim", UsernameMatch.CONTAINS, true)).isNull();
+    }
+
+    @Test
+    public void refreshRepairsOutOfOrderEvents() throws Exception {
+        String[] properties = {"age", "team", "username"};
+
+        // lee -> leeseo -> parkseo 순서로 바뀌었지만 이벤트는 거꾸로 도착했다.
+        jdbcTemplate.update("update member set username = 'parkseo' where member_id = 4");
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 4L,
+                properties, null, new Object[]{10, null, "parkseo"}));
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 4L,
+                properties, null, new Object[]{10, null, "leeseo"}));
+        assertThat(index.search("park", UsernameMatch.PREFIX, false)).isEmpty();
+
+        index.refresh();
+        assertThat(index.search("park", UsernameMatch.PREFIX, false)).containsExactly(4L);
+        assertThat(index.search("lee", UsernameMatch.PREFIX, false)).isEmpty();
+    }
+
+    @Test
+    public void applyChangeEvents() throws Exception {
+        String[] properties = {"age", "team", "username"};
+
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.INSERT, Member.class, 6L,
+                properties, null, new Object[]{10, null, "parkjimin"}));
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 3L,
+                properties, null, new Object[]{10, null, "seo"}));
+        index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.DELETE, Member.class, 2L,
+                properties, null, null));
+
+        assertThat(index.search("jim", UsernameMatch.CONTAINS, false)).containsExactly(6L);
+        assertThat(index.search("kim", UsernameMatch.CONTAINS, false)).isEmpty();
+        assertThat(index.search("kim", UsernameMatch.CONTAINS, true)).containsExactly(1L);
+    }
+
+    @Test
+    public void bulkChangeRebuilds() throws Exception {
+        jdbcTemplate.update("update member set username = 'kimbap' where member_id = 4");
+        index.onEntityChange(EntityChangeEvent.bulk(Member.class));
+
+        // 다시 만드는 동안은 사용할 수 없다.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!index.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(index.search("kimb", UsernameMatch.PREFIX, false)).containsExactly(4L);
+    }
+
+    @Test
+    public void compactAfterManyUpdates() throws Exception {
+        String[] properties = {"age", "team", "username"};
+
+        // 변경마다 새 행을 쓰고 이전 행은 비워 두므로, 빈 행이 많아지면 압축한다.
+        for (int i = 0; i < 3000; i++) {
+            index.onEntityChange(new EntityChangeEvent(EntityChangeEvent.Type.UPDATE, Member.class, 4L,
+                    properties, null, new Object[]{10, null, i % 2 == 0 ? "parkseo" : "leeseo"}));
+        }
+
+        assertThat(index.search("seo", UsernameMatch.CONTAINS, false)).containsExactly(3L, 4L);
+        assertThat(index.search("lees", UsernameMatch.PREFIX, false)).containsExactly(4L);
+        assertThat(index.search("park", UsernameMatch.PREFIX, false)).isEmpty();
+        assertThat(index.search("kim", UsernameMatch.PREFIX, true)).containsExactly(1L, 2L);
+    }
+}
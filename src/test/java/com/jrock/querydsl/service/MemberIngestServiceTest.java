@@ -0,0 +1,87 @@
+package com.jrock.querydsl.service;
+
+import com.jrock.querydsl.dto.MemberIngestResult;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 배치마다 커밋하므로 @Transactional 롤백을 사용하지 않고, 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+class MemberIngestServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberIngestService memberIngestService;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void ingestCsv() throws Exception {
+        persistTeam("teamA");
+
+        String csv = "username,age,teamName\n"
+                + "member1,10,teamA\n"
+                + "\"member,2\",20,\n"
+                + "member3,abc,teamA\n"
+                + "member4,40,teamX\n";
+
+        MemberIngestResult result = memberIngestService.ingest(stream(csv), MemberIngestService.Format.CSV);
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getRejections()).extracting("line").containsExactly(4L, 5L);
+
+        List<Member> members = em.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                .getResultList();
+        assertThat(members).extracting("username").containsExactly("member1", "member,2");
+        assertThat(members.get(0).getTeam().getName()).isEqualTo("teamA");
+        assertThat(members.get(1).getTeam()).isNull();
+    }
+
+    @Test
+    public void ingestNdjson() throws Exception {
+        persistTeam("teamB");
+
+        String ndjson = "{\"username\":\"member1\",\"age\":10,\"teamName\":\"teamB\"}\n"
+                + "{\"username\":\"member2\"\n"
+                + "{\"age\":30}\n";
+
+        MemberIngestResult result = memberIngestService.ingest(stream(ndjson), MemberIngestService.Format.NDJSON);
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+    }
+
+    private void persistTeam(String name) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> em.persist(new Team(name)));
+    }
+
+    private ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
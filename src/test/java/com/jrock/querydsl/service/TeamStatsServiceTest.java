@@ -0,0 +1,159 @@
+package com.jrock.querydsl.service;
+
+import com.jrock.querydsl.dto.TeamStatsDto;
+import com.jrock.querydsl.entity.Member;
+import com.jrock.querydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 집계는 커밋 직전에 반영되므로 @Transactional 롤백을 사용하지 않고, 테스트 후 직접 지운다.
+ */
+@SpringBootTest
+class TeamStatsServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @AfterEach
+    public void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+        });
+    }
+
+    @Test
+    public void maintainedOnMemberChange() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            return new Long[]{member1.getId(), member2.getId(), teamB.getId()};
+        });
+
+        assertThat(teamStatsService.findAll())
+                .extracting("teamName", "memberCount", "ageSum", "ageAvg", "ageMin", "ageMax")
+                .containsExactly(
+                        tuple("teamA", 2L, 30L, 15.0, 10, 20),
+                        tuple("teamB", 2L, 70L, 35.0, 30, 40));
+
+        // member1 은 teamB 로 이동, member2 는 삭제
+        tx.executeWithoutResult(status -> {
+            em.find(Member.class, ids[0]).changeTeam(em.find(Team.class, ids[2]));
+            em.remove(em.find(Member.class, ids[1]));
+        });
+
+        List<TeamStatsDto> stats = teamStatsService.findAll();
+        assertThat(stats)
+                .extracting("teamName", "memberCount", "ageSum", "ageAvg", "ageMin", "ageMax")
+                .containsExactly(
+                        tuple("teamA", 0L, 0L, null, null, null),
+                        tuple("teamB", 3L, 80L, 80.0 / 3, 10, 40));
+
+        // 롤백되면 반영되지 않는다.
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("member5", 50, em.find(Team.class, ids[2])));
+            status.setRollbackOnly();
+        });
+        assertThat(teamStatsService.findAll()).extracting("memberCount").containsExactly(0L, 3L);
+    }
+
+    @Test
+    public void reconcileBulkChanges() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+
+        // 벌크 연산은 리스너를 거치지 않는다.
+        tx.executeWithoutResult(status -> em.createQuery("update Member m set m.age = m.age + 1").executeUpdate());
+        assertThat(teamStatsService.findAll()).extracting("ageSum").containsExactly(30L);
+
+        assertThat(teamStatsService.reconcile()).isGreaterThanOrEqualTo(1);
+        assertThat(teamStatsService.findAll())
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(tuple(2L, 32L, 11, 21));
+        assertThat(teamStatsService.reconcile()).isEqualTo(0);
+    }
+
+    @Test
+    public void minMaxWithoutRecompute() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member20 = new Member("member20", 20, teamA);
+            em.persist(new Member("member10", 10, teamA));
+            em.persist(member20);
+            em.persist(new Member("member30", 30, teamA));
+            return new Long[]{teamA.getId(), member20.getId()};
+        });
+
+        // 최소, 최대 안쪽의 나이가 빠지고, 바깥쪽 나이가 추가된다.
+        Long member40Id = tx.execute(status -> {
+            Team teamA = em.find(Team.class, ids[0]);
+            em.remove(em.find(Member.class, ids[1]));
+            em.persist(new Member("member5", 5, teamA));
+            Member member40 = new Member("member40", 40, teamA);
+            em.persist(member40);
+            return member40.getId();
+        });
+        assertThat(teamStatsService.findAll())
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(tuple(4L, 85L, 5, 40));
+
+        // 최대값이 빠지면 그 팀만 다시 계산한다.
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member40Id)));
+        assertThat(teamStatsService.findAll())
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(tuple(3L, 45L, 5, 30));
+    }
+
+    @Test
+    public void reconcileMissingStats() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        tx.executeWithoutResult(status -> em.createQuery("delete from TeamStats").executeUpdate());
+        assertThat(teamStatsService.findAll()).isEmpty();
+
+        // 리스너와 같은 방법으로 집계 행을 만든다.
+        assertThat(teamStatsService.reconcile()).isEqualTo(1);
+        assertThat(teamStatsService.findAll())
+                .extracting("memberCount", "ageSum", "ageMin", "ageMax")
+                .containsExactly(tuple(2L, 30L, 10, 20));
+    }
+}
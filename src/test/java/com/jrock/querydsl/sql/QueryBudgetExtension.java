@@ -0,0 +1,48 @@
+package com.jrock.querydsl.sql;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+/**
+ * 테스트 메서드 본문이 실행한 SQL 수를 세고, @QueryBudget 을 넘으면 실패시킨다.
+ * (@BeforeEach 에서 데이터를 넣는 SQL 은 세지 않는다.)
+ *
+ * 사용법
+ *   @ExtendWith(QueryBudgetExtension.class)
+ *   @QueryBudget(2) 또는 메서드에 @QueryBudget(1)
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementCounter.open(context.getDisplayName()));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementCounter.Scope scope = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), SqlStatementCounter.Scope.class);
+        scope.close();
+
+        Optional<QueryBudget> budget = findBudget(context);
+        if (budget.isPresent() && scope.getTotal() > budget.get().value()) {
+            throw new AssertionError("SQL 실행 횟수가 예산을 넘었습니다. budget=" + budget.get().value()
+                    + ", actual=" + scope.getTotal() + ", statements=" + scope.getStatements());
+        }
+    }
+
+    private Optional<QueryBudget> findBudget(ExtensionContext context) {
+        Optional<QueryBudget> methodBudget = context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, QueryBudget.class));
+        if (methodBudget.isPresent()) {
+            return methodBudget;
+        }
+        return context.getTestClass().flatMap(type -> AnnotationSupport.findAnnotation(type, QueryBudget.class));
+    }
+}
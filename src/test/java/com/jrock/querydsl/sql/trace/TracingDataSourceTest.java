@@ -0,0 +1,100 @@
+package com.jrock.querydsl.sql.trace;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingDataSourceTest {
+
+    private final DriverManagerDataSource target =
+            new DriverManagerDataSource("jdbc:h2:mem:sqltrace;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @Test
+    public void traceSampledConnection() throws Exception {
+        SqlTraceBuffer buffer = new SqlTraceBuffer(16);
+        TracingDataSource dataSource = new TracingDataSource(target, buffer, 1.0);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select ? + ?")) {
+            statement.setInt(1, 10);
+            statement.setInt(2, 20);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                assertThat(rs.getInt(1)).isEqualTo(30);
+            }
+        }
+
+        List<SqlTrace> traces = buffer.snapshot();
+        assertThat(traces).hasSize(1);
+        assertThat(traces.get(0).getSql()).isEqualTo("select ? + ?");
+        assertThat(traces.get(0).getParameters()).containsExactly("10", "20");
+        assertThat(traces.get(0).getError()).isNull();
+    }
+
+    @Test
+    public void traceEveryBatchParameterSet() throws Exception {
+        SqlTraceBuffer buffer = new SqlTraceBuffer(16);
+        TracingDataSource dataSource = new TracingDataSource(target, buffer, 1.0);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.createStatement().execute("create table batch_trace (id int, name varchar(10))");
+            try (PreparedStatement statement = connection.prepareStatement("insert into batch_trace values (?, ?)")) {
+                // Statement 에서 꺼낸 커넥션도 추적 중인 커넥션이다.
+                assertThat(statement.getConnection()).isSameAs(connection);
+
+                for (int i = 1; i <= 3; i++) {
+                    statement.setInt(1, i);
+                    statement.setString(2, "name" + i);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.createStatement().execute("drop table batch_trace");
+        }
+
+        SqlTrace batch = buffer.snapshot().stream()
+                .filter(trace -> "insert into batch_trace values (?, ?)".equals(trace.getSql()))
+                .findFirst().get();
+        assertThat(batch.getBatchSize()).isEqualTo(3);
+        assertThat(batch.getParameters()).isEmpty();
+        assertThat(batch.getBatchParameters()).containsExactly(
+                List.of("1", "name1"), List.of("2", "name2"), List.of("3", "name3"));
+    }
+
+    @Test
+    public void skipUnsampledConnection() throws Exception {
+        SqlTraceBuffer buffer = new SqlTraceBuffer(16);
+        TracingDataSource dataSource = new TracingDataSource(target, buffer, 0);
+
+        try (Connection connection = dataSource.getConnection()) {
+            // 샘플링되지 않으면 원래 커넥션을 그대로 사용한다.
+            assertThat(Proxy.isProxyClass(connection.getClass())).isFalse();
+            connection.createStatement().execute("select 1");
+        }
+
+        assertThat(buffer.snapshot()).isEmpty();
+    }
+
+    @Test
+    public void ringBufferKeepsLatest() throws Exception {
+        SqlTraceBuffer buffer = new SqlTraceBuffer(5); // 8 로 올림
+
+        for (int i = 0; i < 20; i++) {
+            buffer.add(i, 0, "select " + i, List.of(), 0, null);
+        }
+
+        List<SqlTrace> traces = buffer.snapshot();
+        assertThat(buffer.capacity()).isEqualTo(8);
+        assertThat(buffer.recorded()).isEqualTo(20);
+        assertThat(traces).extracting("sql")
+                .containsExactly("select 12", "select 13", "select 14", "select 15",
+                        "select 16", "select 17", "select 18", "select 19");
+    }
+}
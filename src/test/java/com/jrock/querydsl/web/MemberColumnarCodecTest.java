@@ -0,0 +1,104 @@
+package com.jrock.querydsl.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberColumnarCodecTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        List<MemberTeamDto> members = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2 😀", -1, 1L, "teamA"),
+                new MemberTeamDto(3L, "", Integer.MAX_VALUE, 2L, "팀B"),
+                new MemberTeamDto(null, null, 0, null, null),
+                new MemberTeamDto(Long.MAX_VALUE, "member5", 50, 2L, "팀B"));
+
+        assertThat(roundTrip(members)).containsExactlyElementsOf(members);
+    }
+
+    @Test
+    public void roundTripEmptyAndLarge() throws Exception {
+        assertThat(roundTrip(List.of())).isEmpty();
+
+        List<MemberTeamDto> members = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            members.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+        assertThat(roundTrip(members)).containsExactlyElementsOf(members);
+    }
+
+    @Test
+    public void smallerThanJson() throws Exception {
+        List<MemberTeamDto> members = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            members.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        MemberColumnarCodec.encode(members, binary);
+        byte[] json = new ObjectMapper().writeValueAsBytes(members);
+
+        assertThat(binary.size()).isLessThan(json.length / 2);
+    }
+
+    @Test
+    public void rejectUnknownFormat() throws Exception {
+        assertThatThrownBy(() -> MemberColumnarCodec.decode(new ByteArrayInputStream("[{}]".getBytes())))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void rejectCorruptedInput() throws Exception {
+        List<MemberTeamDto> members = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnarCodec.encode(members, out);
+        byte[] valid = out.toByteArray();
+
+        // 행 수 (magic 다음 int)
+        assertThatThrownBy(() -> decode(withInt(valid, 4, -1))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(withInt(valid, 4, Integer.MAX_VALUE))).isInstanceOf(IOException.class);
+
+        // 첫 번째 회원명 길이 (magic, rows, memberId bitmap 1바이트 + long 2개, username bitmap 1바이트 다음)
+        int usernameLength = 4 + 4 + 1 + 16 + 1;
+        assertThatThrownBy(() -> decode(withInt(valid, usernameLength, -5))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(withInt(valid, usernameLength, Integer.MAX_VALUE))).isInstanceOf(IOException.class);
+
+        // 마지막 행의 사전 번호
+        assertThatThrownBy(() -> decode(withInt(valid, valid.length - 4, 7))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decode(withInt(valid, valid.length - 4, -2))).isInstanceOf(IOException.class);
+
+        // 잘린 입력
+        assertThatThrownBy(() -> decode(Arrays.copyOf(valid, valid.length - 1))).isInstanceOf(IOException.class);
+    }
+
+    private List<MemberTeamDto> decode(byte[] bytes) throws IOException {
+        return MemberColumnarCodec.decode(new ByteArrayInputStream(bytes));
+    }
+
+    private byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private List<MemberTeamDto> roundTrip(List<MemberTeamDto> members) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MemberColumnarCodec.encode(members, out);
+        return MemberColumnarCodec.decode(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
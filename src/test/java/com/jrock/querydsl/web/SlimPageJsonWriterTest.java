@@ -0,0 +1,59 @@
+package com.jrock.querydsl.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jrock.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlimPageJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void writePage() throws Exception {
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "\"quote\" \\ \n\t회원 😀", -20, null, null));
+
+        JsonNode json = write(new PageImpl<>(content, PageRequest.of(1, 2), 7));
+
+        assertThat(json.get("page").asInt()).isEqualTo(1);
+        assertThat(json.get("size").asInt()).isEqualTo(2);
+        assertThat(json.get("totalElements").asLong()).isEqualTo(7);
+        assertThat(json.get("totalPages").asInt()).isEqualTo(4);
+        assertThat(json.has("pageable")).isFalse();
+
+        // Jackson 으로 직렬화한 DTO 와 같다.
+        for (int i = 0; i < content.size(); i++) {
+            assertThat(json.get("content").get(i)).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(content.get(i))));
+        }
+    }
+
+    @Test
+    public void writeLargerThanBuffer() throws Exception {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, (long) (i % 10), "team" + (i % 10)));
+        }
+
+        JsonNode json = write(new PageImpl<>(content, PageRequest.of(0, 1000), 100_000));
+
+        assertThat(json.get("content")).hasSize(1000);
+        assertThat(json.get("content").get(999).get("username").asText()).isEqualTo("member999");
+        assertThat(json.get("totalElements").asLong()).isEqualTo(100_000);
+    }
+
+    private JsonNode write(PageImpl<MemberTeamDto> page) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SlimPageJsonWriter.write(page, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}